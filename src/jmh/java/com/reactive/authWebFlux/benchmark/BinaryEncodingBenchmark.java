@@ -0,0 +1,111 @@
+package com.reactive.authWebFlux.benchmark;
+
+import com.reactive.authWebFlux.config.CodecConfig;
+import com.reactive.authWebFlux.dto.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Encoding and decoding of a GET /api/users page in the negotiable formats. The payload size of each
+ * format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinaryEncodingBenchmark {
+
+    private static final ResolvableType PAGE_TYPE = ResolvableType.forClassWithGenerics(List.class, UserDto.class);
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"1", "100"})
+    public int userCount;
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private Encoder<Object> encoder;
+
+    private Decoder<Object> decoder;
+
+    private MediaType mediaType;
+
+    private List<UserDto> users;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        switch (format) {
+            case "cbor":
+                encoder = new Jackson2CborEncoder();
+                decoder = new Jackson2CborDecoder();
+                mediaType = MediaType.APPLICATION_CBOR;
+                break;
+            case "smile":
+                encoder = new Jackson2SmileEncoder();
+                decoder = new Jackson2SmileDecoder();
+                mediaType = CodecConfig.APPLICATION_SMILE;
+                break;
+            default:
+                encoder = new Jackson2JsonEncoder();
+                decoder = new Jackson2JsonDecoder();
+                mediaType = MediaType.APPLICATION_JSON;
+        }
+        users = LongStream.rangeClosed(1, userCount)
+                .mapToObj(id -> {
+                    UserDto dto = new UserDto();
+                    dto.setId(id);
+                    dto.setUsername("user" + id);
+                    return dto;
+                })
+                .collect(Collectors.toList());
+        DataBuffer buffer = encodeValue();
+        encoded = new byte[buffer.readableByteCount()];
+        buffer.read(encoded);
+        DataBufferUtils.release(buffer);
+        System.out.printf("%n%s, %d users: %d bytes%n", format, userCount, encoded.length);
+    }
+
+    @Benchmark
+    public int encode() {
+        DataBuffer buffer = encodeValue();
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @Benchmark
+    public Object decode() {
+        return decoder.decode(bufferFactory.wrap(encoded), PAGE_TYPE, mediaType, Collections.emptyMap());
+    }
+
+    private DataBuffer encodeValue() {
+        return encoder.encodeValue(users, bufferFactory, PAGE_TYPE, mediaType, Collections.emptyMap());
+    }
+}
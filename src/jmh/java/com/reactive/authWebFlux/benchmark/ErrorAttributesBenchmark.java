@@ -0,0 +1,43 @@
+package com.reactive.authWebFlux.benchmark;
+
+import com.reactive.authWebFlux.errorhandling.GlobalErrorAttributes;
+import com.reactive.authWebFlux.exception.UserNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.boot.web.error.ErrorAttributeOptions.Include.MESSAGE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ErrorAttributesBenchmark {
+
+    private final GlobalErrorAttributes errorAttributes = new GlobalErrorAttributes();
+
+    private ServerRequest request;
+
+    @Setup
+    public void setUp() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/0"));
+        errorAttributes.storeErrorInformation(new UserNotFoundException(0), exchange);
+        request = ServerRequest.create(exchange, HandlerStrategies.withDefaults().messageReaders());
+    }
+
+    @Benchmark
+    public Map<String, Object> getErrorAttributes() {
+        return errorAttributes.getErrorAttributes(request, ErrorAttributeOptions.of(MESSAGE));
+    }
+}
@@ -0,0 +1,221 @@
+package com.reactive.authWebFlux.benchmark;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.domain.UserLogin;
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.repository.UserRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link UserRepository} over concurrent maps, so that benchmarks measure the service and not Postgres.
+ */
+class InMemoryUserRepository implements UserRepository {
+
+    private final ConcurrentNavigableMap<Long, User> usersById = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentHashMap<String, User> usersByUsername = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public Mono<User> findByUsernameWithQuery(String username) {
+        return Mono.justOrEmpty(usersByUsername.get(username.toLowerCase(Locale.ROOT)));
+    }
+
+    @Override
+    public Mono<Boolean> existsByUsernameIgnoreCase(String username) {
+        return Mono.fromSupplier(() -> usersByUsername.containsKey(username.toLowerCase(Locale.ROOT)));
+    }
+
+    @Override
+    public Mono<User> insertIfAbsent(String username, String password, int roleId) {
+        return Mono.fromSupplier(() -> {
+            // Like a serial column, a conflicting insert still consumes an id.
+            User user = User.builder()
+                    .id(sequence.incrementAndGet())
+                    .username(username)
+                    .password(password)
+                    .roleId(roleId)
+                    .build();
+            if (usersByUsername.putIfAbsent(username.toLowerCase(Locale.ROOT), user) != null) {
+                return null;
+            }
+            usersById.put(user.getId(), user);
+            return user;
+        });
+    }
+
+    @Override
+    public Mono<Integer> updatePassword(long id, String password) {
+        return Mono.fromSupplier(() -> {
+            User user = usersById.get(id);
+            if (user == null) {
+                return 0;
+            }
+            user.setPassword(password);
+            return 1;
+        });
+    }
+
+    @Override
+    public Flux<User> insertAllIfAbsent(List<User> users) {
+        return Flux.fromIterable(users)
+                .concatMap(user -> insertIfAbsent(user.getUsername(), user.getPassword(), user.getRoleId()));
+    }
+
+    @Override
+    public Mono<Integer> recordLogins(List<UserLogin> logins) {
+        return Mono.fromSupplier(() -> (int) logins.stream()
+                .filter(login -> usersById.containsKey(login.getUserId()))
+                .count());
+    }
+
+    @Override
+    public Flux<UserDto> findPage(long after, int limit) {
+        return Flux.fromIterable(usersById.tailMap(after, false).values())
+                .take(limit)
+                .map(InMemoryUserRepository::toDto);
+    }
+
+    @Override
+    public Mono<UserDto> findDtoById(long id) {
+        return Mono.justOrEmpty(usersById.get(id)).map(InMemoryUserRepository::toDto);
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        return Mono.justOrEmpty(usersById.get(id));
+    }
+
+    @Override
+    public Flux<User> findAll() {
+        return Flux.fromIterable(usersById.values());
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) usersById.size());
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(() -> {
+            usersById.clear();
+            usersByUsername.clear();
+        });
+    }
+
+    private static UserDto toDto(User user) {
+        UserDto dto = new UserDto();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        return dto;
+    }
+
+    @Override
+    public <S extends User> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> store(entity));
+    }
+
+    @Override
+    public <S extends User> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends User> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<User> findById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return Mono.fromSupplier(() -> usersById.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<User> findAllById(Iterable<Long> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<User> findAllById(Publisher<Long> idStream) {
+        return Flux.from(idStream).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return Mono.fromRunnable(() -> remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(User entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        return Mono.fromRunnable(() -> ids.forEach(this::remove));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends User> entities) {
+        return Mono.fromRunnable(() -> entities.forEach(user -> remove(user.getId())));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends User> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    /**
+     * Inserts when the id is unset and replaces otherwise, rejecting a username taken by another user
+     * the way the unique index on LOWER(username) does.
+     */
+    private synchronized <S extends User> S store(S user) {
+        String key = user.getUsername().toLowerCase(Locale.ROOT);
+        User holder = usersByUsername.get(key);
+        if (holder != null && !holder.getId().equals(user.getId())) {
+            throw new DuplicateKeyException("username " + user.getUsername() + " is taken");
+        }
+        if (user.getId() == null) {
+            user.setId(sequence.incrementAndGet());
+        } else {
+            remove(user.getId());
+        }
+        usersById.put(user.getId(), user);
+        usersByUsername.put(key, user);
+        return user;
+    }
+
+    private void remove(Long id) {
+        User user = usersById.remove(id);
+        if (user != null) {
+            usersByUsername.remove(user.getUsername().toLowerCase(Locale.ROOT), user);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.reactive.authWebFlux.benchmark;
+
+import com.reactive.authWebFlux.dto.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Encoding of a stream of {@link UserDto} as the /api/users routes do it, as a JSON array and as NDJSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonEncodingBenchmark {
+
+    private static final ResolvableType USER_DTO_TYPE = ResolvableType.forClass(UserDto.class);
+
+    @Param({"10", "100", "1000"})
+    public int userCount;
+
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private List<UserDto> users;
+
+    @Setup
+    public void setUp() {
+        users = LongStream.rangeClosed(1, userCount)
+                .mapToObj(id -> {
+                    UserDto dto = new UserDto();
+                    dto.setId(id);
+                    dto.setUsername("user" + id);
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long jsonArray() {
+        return encode(MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public long ndjson() {
+        return encode(MediaType.APPLICATION_NDJSON);
+    }
+
+    private long encode(MediaType mediaType) {
+        return encoder.encode(Flux.fromIterable(users), bufferFactory, USER_DTO_TYPE, mediaType,
+                        Collections.emptyMap())
+                .map(buffer -> {
+                    long size = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return size;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactive.authWebFlux.benchmark;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserDtoMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Mapping of a page of users to {@link UserDto}: the former ModelMapper inside flatMap(Mono.just(...))
+ * against {@link UserDtoMapper} inside map(...). Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappingBenchmark {
+
+    private static final int USER_COUNT = 100;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final UserDtoMapper userDtoMapper = new UserDtoMapper();
+
+    private final List<User> users = LongStream.rangeClosed(1, USER_COUNT)
+            .mapToObj(id -> User.builder()
+                    .id(id)
+                    .username("user" + id)
+                    .password("$2a$12$ISkGJEEPR7I24altoMQNFu42sSpzoIE59Y2tmacCdBjTe47FQL85W")
+                    .roleId(1)
+                    .build())
+            .collect(Collectors.toList());
+
+    @Benchmark
+    public UserDto modelMapper() {
+        return modelMapper.map(users.get(0), UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto userDtoMapper() {
+        return userDtoMapper.toDto(users.get(0));
+    }
+
+    @Benchmark
+    public List<UserDto> modelMapperFlux() {
+        return Flux.fromIterable(users)
+                .flatMap(usr -> Mono.just(modelMapper.map(usr, UserDto.class)))
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<UserDto> userDtoMapperFlux() {
+        return Flux.fromIterable(users)
+                .map(userDtoMapper::toDto)
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,102 @@
+package com.reactive.authWebFlux.benchmark;
+
+import com.reactive.authWebFlux.config.HashingProperties;
+import com.reactive.authWebFlux.config.UserCacheProperties;
+import com.reactive.authWebFlux.config.UsersApiProperties;
+import com.reactive.authWebFlux.domain.Role;
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDtoMapper;
+import com.reactive.authWebFlux.metrics.OperationTimer;
+import com.reactive.authWebFlux.repository.RoleRepository;
+import com.reactive.authWebFlux.service.PasswordHashingService;
+import com.reactive.authWebFlux.service.RoleAuthorities;
+import com.reactive.authWebFlux.service.UserDetailsCache;
+import com.reactive.authWebFlux.service.UserEvents;
+import com.reactive.authWebFlux.service.UserService;
+import com.reactive.authWebFlux.service.UsernameFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserService overhead against an in-memory repository. Hashing uses a no-op encoder, see
+ * {@link PasswordEncoderBenchmark} for the cost of BCrypt itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    private static final int USER_COUNT = 1_000;
+
+    private final AtomicLong usernameSequence = new AtomicLong();
+
+    private PasswordHashingService hashingService;
+
+    private UserService userService;
+
+    @Setup(Level.Iteration)
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hashingService = new PasswordHashingService(NoOpPasswordEncoder.getInstance(), new HashingProperties(),
+                meterRegistry);
+        userService = new UserService(new InMemoryUserRepository(), hashingService,
+                new UserDetailsCache(new UserCacheProperties()), new OperationTimer(meterRegistry),
+                roleAuthorities(), new UserEvents(new UserDtoMapper(), meterRegistry),
+                new UsernameFilter(new UsersApiProperties()));
+        userService.loadUsernameFilter(USER_COUNT).block();
+        for (int i = 0; i < USER_COUNT; i++) {
+            userService.addUser(newUser()).block();
+        }
+    }
+
+    /**
+     * Role table holding ROLE_USER, read once during setup.
+     */
+    private static RoleAuthorities roleAuthorities() {
+        Role role = new Role();
+        role.setId(1);
+        role.setRoleName("ROLE_USER");
+        RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+        Mockito.when(roleRepository.findAll()).thenReturn(Flux.just(role));
+        RoleAuthorities roleAuthorities = new RoleAuthorities(roleRepository);
+        roleAuthorities.refresh().block();
+        return roleAuthorities;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        hashingService.destroy();
+    }
+
+    @Benchmark
+    public User addUser() {
+        return userService.addUser(newUser()).block();
+    }
+
+    @Benchmark
+    public User findById() {
+        return userService.findById(1L + usernameSequence.get() % USER_COUNT).block();
+    }
+
+    private User newUser() {
+        return User.builder()
+                .username("user" + usernameSequence.incrementAndGet())
+                .password("password")
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.reactive.authWebFlux.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps every latency of one scenario, so that percentiles are exact rather than estimated.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+
+    private int count;
+
+    private int errors;
+
+    synchronized void record(long nanos, boolean error) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("throughputPerSecond", round(count / seconds));
+        summary.put("errorRate", count == 0 ? 0.0 : round((double) errors / count));
+        summary.put("p50Millis", percentile(sorted, 0.5));
+        summary.put("p90Millis", percentile(sorted, 0.9));
+        summary.put("p99Millis", percentile(sorted, 0.99));
+        summary.put("p999Millis", percentile(sorted, 0.999));
+        summary.put("maxMillis", count == 0 ? 0.0 : round(sorted[count - 1] / 1e6));
+        return summary;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return round(sorted[Math.max(index, 0)] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,283 @@
+package com.reactive.authWebFlux.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.authWebFlux.AuthWebFluxApplication;
+import com.reactive.authWebFlux.loadtest.LoadTestSettings.Scenario;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.sql.DataSource;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application against an embedded Postgres, seeds users and drives a configurable mix of
+ * login, list, get and signup requests. The summary is written as JSON so that runs can be diffed.
+ * Run with {@code ./gradlew loadTest}, see {@link LoadTestSettings} for the parameters.
+ */
+public class LoadTestRunner {
+
+    private static final String PASSWORD = "password";
+    private static final String ADMIN_USERNAME = "loadadmin";
+    private static final String SEEDED_USERNAME_PREFIX = "load";
+
+    private static final Pattern CSRF_INPUT = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+    private static final Pattern SESSION_COOKIE = Pattern.compile("SESSION=([^;]+)");
+
+    private final LoadTestSettings settings;
+
+    private final HttpClient client;
+
+    private final Map<Scenario, LatencyRecorder> recorders = new EnumMap<>(Scenario.class);
+
+    private final AtomicLong signupSequence = new AtomicLong();
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final int totalWeight;
+
+    LoadTestRunner(LoadTestSettings settings, int port) {
+        this.settings = settings;
+        this.client = HttpClient.create(ConnectionProvider.create("load-test", settings.concurrency * 2))
+                .baseUrl("http://localhost:" + port);
+        this.totalWeight = settings.mix.values().stream().mapToInt(Integer::intValue).sum();
+        for (Scenario scenario : settings.mix.keySet()) {
+            recorders.put(scenario, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            DataSource dataSource = postgres.getPostgresDatabase();
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            seed(dataSource, settings.seededUsers);
+            String database = "localhost:" + postgres.getPort() + "/postgres";
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(AuthWebFluxApplication.class).run(
+                    "--server.port=0",
+                    "--spring.flyway.url=jdbc:postgresql://" + database,
+                    "--spring.flyway.user=postgres",
+                    "--spring.flyway.password=",
+                    "--spring.r2dbc.url=r2dbc:postgresql://" + database,
+                    "--spring.r2dbc.username=postgres",
+                    "--spring.r2dbc.password=",
+                    "--app.login-throttle.enabled=" + settings.shedding,
+                    "--app.concurrency-limit.enabled=" + settings.shedding)) {
+                int port = Integer.parseInt(app.getEnvironment().getRequiredProperty("local.server.port"));
+                Map<String, Object> summary = new LoadTestRunner(settings, port).run();
+                Files.createDirectories(settings.output.toAbsolutePath().getParent());
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(settings.output.toFile(), summary);
+                System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(summary));
+                System.out.println("Summary written to " + settings.output.toAbsolutePath());
+            }
+        }
+    }
+
+    private static void seed(DataSource dataSource, int users) throws SQLException {
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement seedUsers = connection.prepareStatement(
+                     "insert into users(username, password, role_id) " +
+                             "select ? || i, ?, 1 from generate_series(1, ?) i");
+             PreparedStatement seedAdmin = connection.prepareStatement(
+                     "insert into users(username, password, role_id) values (?, ?, 2)")) {
+            seedUsers.setString(1, SEEDED_USERNAME_PREFIX);
+            seedUsers.setString(2, hash);
+            seedUsers.setInt(3, users);
+            seedUsers.executeUpdate();
+            seedAdmin.setString(1, ADMIN_USERNAME);
+            seedAdmin.setString(2, hash);
+            seedAdmin.executeUpdate();
+        }
+    }
+
+    Map<String, Object> run() {
+        drive(settings.warmup.toNanos(), false);
+        long start = System.nanoTime();
+        drive(settings.duration.toNanos(), true);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("seededUsers", settings.seededUsers);
+        parameters.put("concurrency", settings.concurrency);
+        parameters.put("durationSeconds", settings.duration.getSeconds());
+        parameters.put("mix", settings.mix);
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        recorders.forEach((scenario, recorder) -> scenarios.put(scenario.name(), recorder.summary(seconds)));
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("parameters", parameters);
+        summary.put("scenarios", scenarios);
+        return summary;
+    }
+
+    private void drive(long durationNanos, boolean record) {
+        long deadline = System.nanoTime() + durationNanos;
+        Flux.range(0, settings.concurrency)
+                .flatMap(i -> virtualUser(deadline, record), settings.concurrency)
+                .blockLast();
+    }
+
+    /**
+     * Requests read the session cookie and CSRF token when they are built, so every step that
+     * depends on an earlier response is deferred.
+     * Logs in an admin session for the reads, opens an anonymous session for logins and signups
+     * and then runs random scenarios until the deadline.
+     */
+    private Mono<Void> virtualUser(long deadline, boolean record) {
+        Session anonymous = new Session();
+        Session admin = new Session();
+        return open(anonymous)
+                .then(Mono.defer(() -> open(admin)))
+                .then(Mono.defer(() -> login(admin, ADMIN_USERNAME)))
+                .then(Mono.defer(() -> step(anonymous, admin, record))
+                        .repeat(() -> System.nanoTime() < deadline)
+                        .then());
+    }
+
+    private Mono<Void> step(Session anonymous, Session admin, boolean record) {
+        Scenario scenario = pickScenario();
+        Mono<Boolean> call;
+        switch (scenario) {
+            case LOGIN:
+                call = login(anonymous, SEEDED_USERNAME_PREFIX + randomSeededUser());
+                break;
+            case LIST_USERS:
+                call = exchange(HttpMethod.GET, "/api/users?limit=50&after=" + randomSeededUser(), admin,
+                        headers -> {
+                        }, null).map(response -> response.status == 200);
+                break;
+            case GET_USER:
+                call = exchange(HttpMethod.GET, "/api/users/" + randomSeededUser(), admin,
+                        headers -> {
+                        }, null).map(response -> response.status == 200);
+                break;
+            default:
+                call = signup(anonymous);
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.onErrorReturn(false)
+                    .doOnNext(ok -> {
+                        if (record) {
+                            recorders.get(scenario).record(System.nanoTime() - start, !ok);
+                        }
+                    });
+        }).then();
+    }
+
+    private Scenario pickScenario() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Scenario, Integer> weight : settings.mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty scenario mix");
+    }
+
+    private int randomSeededUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(settings.seededUsers);
+    }
+
+    private Mono<Void> open(Session session) {
+        return exchange(HttpMethod.GET, "/login", session, headers -> {
+        }, null)
+                .doOnNext(response -> {
+                    Matcher csrf = CSRF_INPUT.matcher(response.body);
+                    if (!csrf.find()) {
+                        throw new IllegalStateException("No CSRF token on the login page");
+                    }
+                    session.csrf = csrf.group(1);
+                })
+                .then();
+    }
+
+    private Mono<Boolean> login(Session session, String username) {
+        String form = "username=" + encode(username) + "&password=" + encode(PASSWORD)
+                + "&_csrf=" + encode(session.csrf);
+        return exchange(HttpMethod.POST, "/login", session,
+                headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED),
+                form)
+                .map(response -> response.status == 302 && "/".equals(response.location));
+    }
+
+    private Mono<Boolean> signup(Session session) {
+        String body = "{\"username\":\"signup-" + runId + "-" + signupSequence.incrementAndGet()
+                + "\",\"password\":\"" + PASSWORD + "\"}";
+        return exchange(HttpMethod.POST, "/api/users", session,
+                headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                        .set("X-CSRF-TOKEN", session.csrf),
+                body)
+                .map(response -> response.status == 200);
+    }
+
+    private Mono<Response> exchange(HttpMethod method, String uri, Session session,
+                                    Consumer<HttpHeaders> headers, String body) {
+        HttpClient.RequestSender sender = client
+                .headers(h -> {
+                    if (session.cookie != null) {
+                        h.set(HttpHeaderNames.COOKIE, "SESSION=" + session.cookie);
+                    }
+                    headers.accept(h);
+                })
+                .request(method)
+                .uri(uri);
+        HttpClient.ResponseReceiver<?> receiver = body == null
+                ? sender
+                : sender.send(ByteBufFlux.fromString(Mono.just(body)));
+        return receiver.responseSingle((response, content) -> content.asString()
+                .defaultIfEmpty("")
+                .map(text -> {
+                    for (String setCookie : response.responseHeaders().getAll(HttpHeaderNames.SET_COOKIE)) {
+                        Matcher sessionCookie = SESSION_COOKIE.matcher(setCookie);
+                        if (sessionCookie.find()) {
+                            session.cookie = sessionCookie.group(1);
+                        }
+                    }
+                    return new Response(response.status().code(),
+                            response.responseHeaders().get(HttpHeaderNames.LOCATION), text);
+                }));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cookie and CSRF token of one virtual user, only touched by its own sequential requests.
+     */
+    private static class Session {
+
+        private String cookie;
+
+        private String csrf;
+    }
+
+    private record Response(int status, String location, String body) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.reactive.authWebFlux.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from {@code loadTest.*} system properties.
+ */
+class LoadTestSettings {
+
+    final int seededUsers = Integer.getInteger("loadTest.users", 10_000);
+
+    final int concurrency = Integer.getInteger("loadTest.concurrency", 64);
+
+    final Duration warmup = Duration.parse(System.getProperty("loadTest.warmup", "PT10S"));
+
+    final Duration duration = Duration.parse(System.getProperty("loadTest.duration", "PT30S"));
+
+    /**
+     * Relative weights of the scenarios, e.g. {@code login=10,list=30,get=50,signup=10}.
+     */
+    final Map<Scenario, Integer> mix = parseMix(System.getProperty("loadTest.mix",
+            "login=10,list=30,get=50,signup=10"));
+
+    /**
+     * Keeps login throttling and concurrency limiting on. They are off by default because all virtual users
+     * log in from one address, mostly as the same admin.
+     */
+    final boolean shedding = Boolean.getBoolean("loadTest.shedding");
+
+    final Path output = Path.of(System.getProperty("loadTest.output", "build/reports/load/summary.json"));
+
+    private static Map<Scenario, Integer> parseMix(String mix) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=");
+            weights.put(Scenario.byKey(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+
+    enum Scenario {
+        LOGIN("login"), LIST_USERS("list"), GET_USER("get"), SIGNUP("signup");
+
+        private final String key;
+
+        Scenario(String key) {
+            this.key = key;
+        }
+
+        static Scenario byKey(String key) {
+            for (Scenario scenario : values()) {
+                if (scenario.key.equals(key)) {
+                    return scenario;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scenario " + key);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.reactive.authWebFlux.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+/**
+ * CBOR and Smile next to JSON for the user API, chosen by {@code Accept} and {@code Content-Type}.
+ * Both use the application's Jackson settings. The CBOR codec only handles single values, which is
+ * what every route except the NDJSON ones writes and reads.
+ */
+@Configuration
+public class CodecConfig {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Media types of response bodies in the order they are preferred when the client accepts several.
+     */
+    public static final List<MediaType> API_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+
+    /**
+     * Media types of responses that stay open while rows or events keep coming.
+     */
+    public static final List<MediaType> STREAMING_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    /**
+     * Whether an accepted type names one of the given media types, parameters such as charset or quality
+     * being ignored.
+     */
+    public static boolean acceptsAny(List<MediaType> accepted, List<MediaType> mediaTypes) {
+        return accepted.stream().anyMatch(type -> mediaTypes.stream().anyMatch(type::equalsTypeAndSubtype));
+    }
+
+    /**
+     * Registered as custom codecs so that they are picked ahead of the unconfigured default Smile codec,
+     * with the default codec settings such as the in-memory size limit.
+     */
+    @Bean
+    public CodecCustomizer binaryJacksonCodecs(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        ObjectMapper cborMapper = builders.getObject().factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = builders.getObject().factory(new SmileFactory()).build();
+        return configurer -> {
+            CodecConfigurer.CustomCodecs codecs = configurer.customCodecs();
+            codecs.registerWithDefaultConfig(new Jackson2CborDecoder(cborMapper));
+            codecs.registerWithDefaultConfig(new Jackson2CborEncoder(cborMapper));
+            codecs.registerWithDefaultConfig(new Jackson2SmileDecoder(smileMapper));
+            codecs.registerWithDefaultConfig(new Jackson2SmileEncoder(smileMapper));
+        };
+    }
+}
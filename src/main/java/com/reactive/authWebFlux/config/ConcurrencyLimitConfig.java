@@ -0,0 +1,40 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.limiter.ConcurrencyLimitFilter;
+import com.reactive.authWebFlux.limiter.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "app.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter(
+                limiter("admin-read", properties.getAdminRead(), properties, meterRegistry),
+                limiter("signup", properties.getSignup(), properties, meterRegistry),
+                properties.getRetryAfter());
+    }
+
+    private static GradientConcurrencyLimiter limiter(String group, ConcurrencyLimitProperties.Limit limit,
+                                                      ConcurrencyLimitProperties properties,
+                                                      MeterRegistry meterRegistry) {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(limit.getInitialLimit(),
+                limit.getMinLimit(), limit.getMaxLimit(), properties.getSmoothing());
+        Gauge.builder("concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .tag("group", group).register(meterRegistry);
+        Gauge.builder("concurrency.in-flight", limiter, GradientConcurrencyLimiter::getInFlight)
+                .tag("group", group).register(meterRegistry);
+        FunctionCounter.builder("concurrency.rejected", limiter, GradientConcurrencyLimiter::getRejections)
+                .tag("group", group).register(meterRegistry);
+        return limiter;
+    }
+}
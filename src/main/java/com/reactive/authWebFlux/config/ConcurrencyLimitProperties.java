@@ -0,0 +1,49 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Adaptive in-flight limits for the user API, admin reads and signups are limited independently.
+ */
+@Data
+@ConfigurationProperties("app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Weight of a new estimate when moving the limit, between 0 and 1.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Sent as Retry-After with a shed request.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    private Limit adminRead = new Limit(20, 4, 200);
+
+    private Limit signup = new Limit(10, 2, 50);
+
+    @Data
+    public static class Limit {
+
+        private int initialLimit;
+
+        private int minLimit;
+
+        private int maxLimit;
+
+        public Limit() {
+        }
+
+        public Limit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the R2DBC connection pool not covered by {@code spring.r2dbc.pool}.
+ */
+@Data
+@ConfigurationProperties("app.db-pool")
+public class DbPoolProperties {
+
+    /**
+     * Number of requests allowed to wait for a connection, further ones fail immediately.
+     */
+    private int maxPendingAcquire = 100;
+
+    /**
+     * How long startup waits for the initial connections to be opened.
+     */
+    private Duration warmupTimeout = Duration.ofSeconds(10);
+}
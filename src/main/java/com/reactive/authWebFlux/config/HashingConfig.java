@@ -0,0 +1,40 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.security.CostPolicyPasswordEncoder;
+import com.reactive.authWebFlux.service.PasswordHashingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(HashingProperties.class)
+public class HashingConfig {
+
+    /**
+     * Stored hashes of a lower cost are rehashed at this cost on the user's next successful login. Instances
+     * should share one {@code app.hashing.cost}; the calibrated cost is meant for development and as a guide.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(HashingProperties hashingProperties) {
+        if (hashingProperties.getCost() != null) {
+            log.info("BCrypt cost {}", hashingProperties.getCost());
+            return new CostPolicyPasswordEncoder(hashingProperties.getCost());
+        }
+        CostPolicyPasswordEncoder encoder = CostPolicyPasswordEncoder.calibrated(
+                hashingProperties.getLatencyBudget(), hashingProperties.getMinCost(), hashingProperties.getMaxCost());
+        log.warn("BCrypt cost {} calibrated for a latency budget of {} ms, set app.hashing.cost to use one cost "
+                        + "on all instances", encoder.getCost(), hashingProperties.getLatencyBudget().toMillis());
+        return encoder;
+    }
+
+    @Bean
+    public PasswordHashingService passwordHashingService(PasswordEncoder passwordEncoder,
+                                                         HashingProperties hashingProperties,
+                                                         MeterRegistry meterRegistry) {
+        return new PasswordHashingService(passwordEncoder, hashingProperties, meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the dedicated executor that runs all {@code PasswordEncoder} work, and the BCrypt cost policy.
+ */
+@Data
+@ConfigurationProperties("app.hashing")
+public class HashingProperties {
+
+    /**
+     * Number of hashing threads.
+     */
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of hashing tasks allowed to wait for a free thread before new ones are rejected.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * Time one hash may take; the BCrypt cost is calibrated against it at startup.
+     */
+    private Duration latencyBudget = Duration.ofMillis(250);
+
+    private int minCost = 10;
+
+    private int maxCost = 14;
+
+    /**
+     * Fixed BCrypt cost, skips the calibration when set. Deployments with several instances should set it
+     * so that all of them hash at the same cost.
+     */
+    private Integer cost;
+}
@@ -0,0 +1,42 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.logging.LogSampler;
+import com.reactive.authWebFlux.logging.RequestLogFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Samplers of the {@code sql} and {@code requests} log categories and the filter assigning request
+ * correlation ids. The SQL sampler is applied to the driver connections in {@link R2dbcPoolConfig}.
+ */
+@Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
+public class LoggingConfig {
+
+    @Bean
+    public LogSampler sqlLogSampler(LoggingProperties properties, MeterRegistry meterRegistry) {
+        return sampler("sql", properties.getSql(), meterRegistry);
+    }
+
+    @Bean
+    public LogSampler requestLogSampler(LoggingProperties properties, MeterRegistry meterRegistry) {
+        return sampler("requests", properties.getRequests(), meterRegistry);
+    }
+
+    @Bean
+    public RequestLogFilter requestLogFilter(LogSampler requestLogSampler) {
+        return new RequestLogFilter(requestLogSampler);
+    }
+
+    private static LogSampler sampler(String category, LoggingProperties.Category properties,
+                                      MeterRegistry meterRegistry) {
+        LogSampler sampler = new LogSampler(properties.isEnabled(), properties.getSampleRate(),
+                properties.getSlowThreshold());
+        FunctionCounter.builder("log.sampled", sampler, LogSampler::getWritten)
+                .tag("category", category).register(meterRegistry);
+        return sampler;
+    }
+}
@@ -0,0 +1,40 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sampling of the {@code sql} and {@code requests} log categories. Failures and entries slower than the
+ * threshold are always written, the rest at the sample rate.
+ */
+@Data
+@ConfigurationProperties("app.logging")
+public class LoggingProperties {
+
+    private Category sql = new Category(0.01, Duration.ofMillis(100));
+
+    private Category requests = new Category(0.01, Duration.ofSeconds(1));
+
+    @Data
+    public static class Category {
+
+        private boolean enabled = true;
+
+        /**
+         * Share of ordinary entries written, between 0 and 1.
+         */
+        private double sampleRate;
+
+        private Duration slowThreshold;
+
+        public Category() {
+        }
+
+        public Category(double sampleRate, Duration slowThreshold) {
+            this.sampleRate = sampleRate;
+            this.slowThreshold = slowThreshold;
+        }
+    }
+}
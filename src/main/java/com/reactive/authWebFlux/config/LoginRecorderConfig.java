@@ -0,0 +1,23 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.repository.UserRepository;
+import com.reactive.authWebFlux.service.LoginRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(LoginRecorderProperties.class)
+@ConditionalOnProperty(prefix = "app.login-recorder", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LoginRecorderConfig {
+
+    @Bean
+    public LoginRecorder loginRecorder(UserRepository userRepository, LoginRecorderProperties properties,
+                                       MeterRegistry meterRegistry) {
+        return new LoginRecorder(userRepository, properties, Clock.systemUTC(), meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Write-behind recording of successful form logins into {@code users.last_login_at} and {@code login_count}.
+ */
+@Data
+@ConfigurationProperties("app.login-recorder")
+public class LoginRecorderProperties {
+
+    private boolean enabled = true;
+
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * Users with pending logins held between flushes, logins of further users are dropped.
+     */
+    private int maxPendingUsers = 100_000;
+
+    /**
+     * Users written by one update statement.
+     */
+    private int flushBatchSize = 1_000;
+
+    /**
+     * Time the final flush on shutdown may take.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
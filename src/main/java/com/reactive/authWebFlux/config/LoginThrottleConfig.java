@@ -0,0 +1,27 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.security.LoginThrottleFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(LoginThrottleProperties.class)
+@ConditionalOnProperty(prefix = "app.login-throttle", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LoginThrottleConfig {
+
+    @Bean
+    public LoginThrottleFilter loginThrottleFilter(LoginThrottleProperties properties, MeterRegistry meterRegistry) {
+        LoginThrottleFilter filter = new LoginThrottleFilter(properties, Clock.systemUTC());
+        FunctionCounter.builder("login.throttled", filter, LoginThrottleFilter::getUserRejections)
+                .tag("key", "username").register(meterRegistry);
+        FunctionCounter.builder("login.throttled", filter, LoginThrottleFilter::getAddressRejections)
+                .tag("key", "address").register(meterRegistry);
+        return filter;
+    }
+}
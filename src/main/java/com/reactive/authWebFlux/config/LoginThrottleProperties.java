@@ -0,0 +1,44 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Token-bucket limits for form login attempts, applied before the user is loaded or the password hashed.
+ */
+@Data
+@ConfigurationProperties("app.login-throttle")
+public class LoginThrottleProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Attempts a single username can make back to back.
+     */
+    private int userBurst = 5;
+
+    /**
+     * Time to earn back one attempt for a username.
+     */
+    private Duration userRefillInterval = Duration.ofSeconds(12);
+
+    /**
+     * Attempts a single client address can make back to back, across all usernames. Username
+     * availability checks count as attempts.
+     */
+    private int addressBurst = 20;
+
+    private Duration addressRefillInterval = Duration.ofSeconds(1);
+
+    /**
+     * Upper bound of tracked usernames and of tracked addresses.
+     */
+    private int maxKeys = 100_000;
+
+    /**
+     * A key that has not been seen for this long is forgotten, its bucket is full again by then.
+     */
+    private Duration keyTtl = Duration.ofMinutes(10);
+}
@@ -1,5 +1,6 @@
 package com.reactive.authWebFlux.config;
 
+import com.reactive.authWebFlux.dto.UserDtoMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,4 +12,9 @@ public class MapperConfig {
     public ModelMapper modelMapper() {
         return new ModelMapper();
     }
+
+    @Bean
+    public UserDtoMapper userDtoMapper() {
+        return new UserDtoMapper();
+    }
 }
@@ -0,0 +1,75 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.logging.LogSampler;
+import com.reactive.authWebFlux.logging.SqlLoggingConnectionFactory;
+import com.reactive.authWebFlux.metrics.StartupTimings;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool of the repositories, built here instead of by Spring Boot to bound the queue of pending
+ * acquires and to open the initial connections before the application reports ready.
+ * Pool gauges are bound by Spring Boot's r2dbc pool metrics. Pooled connections log sampled SQL through
+ * {@link SqlLoggingConnectionFactory} unless the {@code sql} log category is disabled.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(DbPoolProperties.class)
+public class R2dbcPoolConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(R2dbcProperties r2dbcProperties, DbPoolProperties dbPoolProperties,
+                                            @Qualifier("sqlLogSampler") LogSampler sqlLogSampler) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcProperties.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, r2dbcProperties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, r2dbcProperties.getPassword())
+                .build();
+        ConnectionFactory driver = ConnectionFactories.get(options);
+        if (sqlLogSampler.isEnabled()) {
+            driver = new SqlLoggingConnectionFactory(driver, sqlLogSampler);
+        }
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration
+                .builder(driver)
+                .name("users")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .validationDepth(pool.getValidationDepth())
+                .customizer(poolBuilder -> poolBuilder.maxPendingAcquire(dbPoolProperties.getMaxPendingAcquire()));
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(builder::validationQuery);
+        return new ConnectionPool(builder.build());
+    }
+
+    /**
+     * Runs before the readiness state switches to accepting traffic.
+     */
+    @Bean
+    public ApplicationRunner connectionPoolWarmup(ConnectionPool connectionPool, DbPoolProperties dbPoolProperties,
+                                                  StartupTimings startupTimings) {
+        return args -> {
+            try {
+                Integer warmed = startupTimings.time("r2dbc-warmup",
+                        () -> connectionPool.warmup().block(dbPoolProperties.getWarmupTimeout()));
+                log.info("Connection pool warmed up with {} connections", warmed);
+            } catch (RuntimeException e) {
+                log.warn("Connection pool warmup failed", e);
+            }
+        };
+    }
+}
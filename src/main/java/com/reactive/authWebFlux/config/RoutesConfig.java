@@ -2,27 +2,47 @@ package com.reactive.authWebFlux.config;
 
 import com.reactive.authWebFlux.domain.User;
 import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserDtoMapper;
+import com.reactive.authWebFlux.dto.UserImportResultDto;
+import com.reactive.authWebFlux.dto.UsernameAvailabilityDto;
 import com.reactive.authWebFlux.service.UserService;
 import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
 import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
 import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
 
 @AllArgsConstructor
 @Configuration
+@EnableConfigurationProperties(UsersApiProperties.class)
 public class RoutesConfig {
 
-    private final ModelMapper modelMapper;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    static final String USER_CREATED_EVENT = "user-created";
+
+    private final UserDtoMapper userDtoMapper;
     private final UserService userService;
+    private final UsersApiProperties usersApiProperties;
 
     @Bean
     RouterFunction<ServerResponse> views() {
@@ -42,24 +62,31 @@ public class RoutesConfig {
                                         .render("signup")));
     }
 
+    /**
+     * Bodies are negotiated between JSON, CBOR and Smile, see {@link CodecConfig}, except for the NDJSON
+     * and event streams.
+     */
     @Bean
     RouterFunction<ServerResponse> users() {
         return RouterFunctions.route(
                         GET("/api/users"),
-                        (req) -> ServerResponse
-                                .ok()
-                                .body(userService.findAll().flatMap(usr ->
-                                                Mono.just(modelMapper.map(usr, UserDto.class))
-                                        ),
-                                        UserDto.class)
+                        this::listUsers
                 )
+                .and(RouterFunctions.route(
+                        GET("/api/users/events"),
+                        this::userEvents
+                ))
+                .and(RouterFunctions.route(
+                        GET("/api/users/available"),
+                        this::usernameAvailability
+                ))
                 .and(RouterFunctions.route(
                         GET("/api/users/{userId}"),
                         (req) -> ServerResponse
                                 .ok()
-                                .body(userService.findById(Long.parseLong(req.pathVariable("userId")))
-                                        .flatMap(usr ->
-                                                Mono.just(modelMapper.map(usr, UserDto.class))), UserDto.class)))
+                                .body(userService.findDtoById(
+                                                parse("userId", req.pathVariable("userId"), Long::valueOf)),
+                                        UserDto.class)))
                 .and(RouterFunctions.route(
                         POST("/api/users"),
                         (ServerRequest req) -> {
@@ -67,10 +94,97 @@ public class RoutesConfig {
                             return ServerResponse
                                     .ok()
                                     .body(user.flatMap(userService::addUser)
-                                            .flatMap(usr ->
-                                                    Mono.just(modelMapper.map(usr, UserDto.class))), UserDto.class);
-                        }));
+                                            .map(userDtoMapper::toDto), UserDto.class);
+                        }))
+                .and(RouterFunctions.route(
+                        POST("/api/users/batch"),
+                        (req) -> ServerResponse
+                                .ok()
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .body(userService.importUsers(req.bodyToFlux(User.class),
+                                                usersApiProperties.getImportChunkSize(),
+                                                usersApiProperties.getImportHashConcurrency()),
+                                        UserImportResultDto.class)))
+                .and(RouterFunctions.route(
+                        POST("/api/roles/refresh"),
+                        (req) -> userService.refreshRoles()
+                                .then(ServerResponse.noContent().build())));
     }
 
+    /**
+     * Keyset page of users after the {@code after} id, with the cursor of the next page in a header
+     * when the page is full. With {@code Accept: application/x-ndjson} all users after the cursor
+     * are streamed instead, one row per line.
+     */
+    private Mono<ServerResponse> listUsers(ServerRequest req) {
+        long after = req.queryParam("after").map(value -> parse("after", value, Long::parseLong)).orElse(0L);
+        if (CodecConfig.acceptsAny(req.headers().accept(), List.of(MediaType.APPLICATION_NDJSON))) {
+            return ServerResponse
+                    .ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(userService.streamAfter(after, usersApiProperties.getMaxPageSize()), UserDto.class);
+        }
+        int limit = req.queryParam("limit")
+                .map(value -> parse("limit", value, Integer::parseInt))
+                .map(l -> Math.min(Math.max(l, 1), usersApiProperties.getMaxPageSize()))
+                .orElse(usersApiProperties.getDefaultPageSize());
+        return userService.findPage(after, limit)
+                .collectList()
+                .flatMap(page -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.ok();
+                    if (page.size() == limit) {
+                        response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+                    }
+                    return response.bodyValue(page);
+                });
+    }
 
-}
\ No newline at end of file
+    /**
+     * Whether {@code ?username=} can still be signed up with, checked case-insensitively.
+     */
+    private Mono<ServerResponse> usernameAvailability(ServerRequest req) {
+        String username = req.queryParam("username")
+                .filter(StringUtils::hasText)
+                .orElseThrow(() -> new ServerWebInputException("Missing username"));
+        return userService.isUsernameAvailable(username)
+                .flatMap(available -> ServerResponse
+                        .ok()
+                        .bodyValue(new UsernameAvailabilityDto(username, available)));
+    }
+
+    /**
+     * Server-sent events of created users, the event id being the user id. A reconnecting client
+     * resumes after its {@code Last-Event-ID}, a new one may pass {@code ?after=} to catch up first.
+     */
+    private Mono<ServerResponse> userEvents(ServerRequest req) {
+        Long after = Optional.ofNullable(req.headers().firstHeader(LAST_EVENT_ID_HEADER))
+                .or(() -> req.queryParam("after"))
+                .map(value -> parse("after", value, Long::valueOf))
+                .orElse(null);
+        Flux<UserDto> users = userService.createdUsers(after, usersApiProperties.getMaxPageSize(),
+                usersApiProperties.getEventBufferSize(), usersApiProperties.getEventOverflowPolicy());
+        Flux<ServerSentEvent<UserDto>> events = users
+                .map(user -> ServerSentEvent.builder(user)
+                        .id(String.valueOf(user.getId()))
+                        .event(USER_CREATED_EVENT)
+                        .build())
+                .publish(created -> Flux.merge(created, Flux.interval(usersApiProperties.getEventHeartbeat())
+                        .map(tick -> ServerSentEvent.<UserDto>builder().comment("heartbeat").build())
+                        .takeUntilOther(created.ignoreElements())));
+        return ServerResponse
+                .ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(events));
+    }
+
+    /**
+     * Parses a numeric request parameter, answering 400 rather than 500 when it is malformed.
+     */
+    private static <T> T parse(String name, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid " + name + ": " + value, null, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Netty transport of the embedded server.
+ */
+@Data
+@ConfigurationProperties("app.server")
+public class ServerTransportProperties {
+
+    /**
+     * Number of event loops accepting connections.
+     */
+    private int acceptThreads = 1;
+
+    /**
+     * Number of event loops serving accepted connections.
+     */
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Use native epoll when it is available, NIO otherwise.
+     */
+    private boolean nativeTransport = true;
+
+    /**
+     * SO_REUSEPORT on the listening socket, only honoured with native epoll.
+     */
+    private boolean reusePort = false;
+
+    private boolean tcpNoDelay = true;
+
+    /**
+     * SO_BACKLOG of the listening socket.
+     */
+    private int backlog = 1024;
+}
@@ -0,0 +1,45 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.session.BoundedWebSessionStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.WebSessionIdResolver;
+import org.springframework.web.server.session.WebSessionManager;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(SessionStoreProperties.class)
+public class SessionStoreConfig {
+
+    @Bean
+    public BoundedWebSessionStore webSessionStore(SessionStoreProperties properties, MeterRegistry meterRegistry) {
+        BoundedWebSessionStore store = new BoundedWebSessionStore(properties.getMaxSessions(),
+                properties.getStripes(), properties.getMaxIdleTime(), properties.getOverflowPolicy(),
+                Clock.systemUTC());
+        Gauge.builder("sessions.live", store, BoundedWebSessionStore::getLiveSessions).register(meterRegistry);
+        FunctionCounter.builder("sessions.evicted", store, BoundedWebSessionStore::getIdleEvictions)
+                .tag("reason", "idle").register(meterRegistry);
+        FunctionCounter.builder("sessions.evicted", store, BoundedWebSessionStore::getCapacityEvictions)
+                .tag("reason", "capacity").register(meterRegistry);
+        FunctionCounter.builder("sessions.rejected", store, BoundedWebSessionStore::getRejections)
+                .register(meterRegistry);
+        return store;
+    }
+
+    @Bean(WebHttpHandlerBuilder.WEB_SESSION_MANAGER_BEAN_NAME)
+    public WebSessionManager webSessionManager(BoundedWebSessionStore webSessionStore,
+                                               ObjectProvider<WebSessionIdResolver> webSessionIdResolver) {
+        DefaultWebSessionManager webSessionManager = new DefaultWebSessionManager();
+        webSessionManager.setSessionStore(webSessionStore);
+        webSessionIdResolver.ifAvailable(webSessionManager::setSessionIdResolver);
+        return webSessionManager;
+    }
+}
@@ -0,0 +1,30 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.session.BoundedWebSessionStore;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Capacity and eviction of the in-memory web session store.
+ */
+@Data
+@ConfigurationProperties("app.session-store")
+public class SessionStoreProperties {
+
+    private int maxSessions = 10_000;
+
+    /**
+     * Number of independently locked partitions, the capacity is split evenly between them.
+     */
+    private int stripes = 16;
+
+    private Duration maxIdleTime = Duration.ofMinutes(30);
+
+    /**
+     * What to do with a new session when its partition is full of live sessions.
+     */
+    private BoundedWebSessionStore.OverflowPolicy overflowPolicy =
+            BoundedWebSessionStore.OverflowPolicy.EVICT_LEAST_RECENTLY_USED;
+}
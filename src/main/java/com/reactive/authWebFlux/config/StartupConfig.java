@@ -0,0 +1,83 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.metrics.StartupTimings;
+import com.reactive.authWebFlux.service.PasswordHashingService;
+import com.reactive.authWebFlux.service.RoleAuthorities;
+import com.reactive.authWebFlux.service.UserDetailsCache;
+import com.reactive.authWebFlux.service.UserService;
+import io.r2dbc.pool.ConnectionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup phase timing and the pieces used by the {@code prod} profile and the AppCDS training run.
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans created eagerly even with lazy initialization: migrations must run before traffic, and the
+     * first login or lookup should not pay for the pool, hashing executor or user cache.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter hotPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class, ConnectionPool.class,
+                PasswordHashingService.class, UserDetailsCache.class, UserService.class);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy timedFlywayMigration(StartupTimings startupTimings) {
+        return flyway -> startupTimings.time("flyway", flyway::migrate);
+    }
+
+    /**
+     * Fails startup if the roles cannot be read, users would have no authorities otherwise. Runs before the
+     * web server starts, unlike runners, so that no login is resolved and cached against an empty table.
+     * Skipped by the AppCDS training run, which has no database.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.startup", name = "exit-after-start", havingValue = "false",
+            matchIfMissing = true)
+    public SmartInitializingSingleton roleAuthoritiesLoader(RoleAuthorities roleAuthorities,
+                                                            StartupTimings startupTimings) {
+        return () -> startupTimings.time("roles", () -> roleAuthorities.refresh().block());
+    }
+
+    /**
+     * Fills the username filter in the background, availability checks query the database until it is done.
+     */
+    @Bean
+    public ApplicationRunner usernameFilterLoader(UserService userService, UsersApiProperties usersApiProperties) {
+        return args -> {
+            long start = System.nanoTime();
+            userService.loadUsernameFilter(usersApiProperties.getMaxPageSize())
+                    .subscribe(null,
+                            e -> log.warn("Username filter not loaded, availability checks stay on the database", e),
+                            () -> log.info("Username filter loaded in {} ms", (System.nanoTime() - start) / 1_000_000));
+        };
+    }
+
+    /**
+     * Ends a training run once the context is up, before runners such as the pool warmup need a database.
+     * The role load, which would need one earlier, is not registered in that run.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.startup", name = "exit-after-start", havingValue = "true")
+    public ApplicationListener<ApplicationStartedEvent> exitAfterStart() {
+        return event -> {
+            log.info("Exiting after start for the AppCDS training run");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stateless token authentication, used instead of the session when enabled.
+ */
+@Data
+@ConfigurationProperties("app.token")
+public class TokenProperties {
+
+    private boolean enabled = false;
+
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * Id of the key in {@link #keys} used to sign new tokens.
+     */
+    private String activeKeyId;
+
+    /**
+     * Base64 encoded HMAC-SHA256 keys of at least 32 bytes by id, checked at startup. A rotated-out key
+     * should stay here until its tokens expire.
+     */
+    private Map<String, String> keys = new HashMap<>();
+
+    private String cookieName = "AUTH_TOKEN";
+
+    private boolean secureCookie = true;
+}
@@ -0,0 +1,27 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.security.TokenSecurityContextRepository;
+import com.reactive.authWebFlux.security.TokenService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(TokenProperties.class)
+@ConditionalOnProperty(prefix = "app.token", name = "enabled", havingValue = "true")
+public class TokenSecurityConfig {
+
+    @Bean
+    public TokenService tokenService(TokenProperties tokenProperties) {
+        return new TokenService(tokenProperties, Clock.systemUTC());
+    }
+
+    @Bean
+    public TokenSecurityContextRepository tokenSecurityContextRepository(TokenService tokenService,
+                                                                         TokenProperties tokenProperties) {
+        return new TokenSecurityContextRepository(tokenService, tokenProperties);
+    }
+}
@@ -0,0 +1,20 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.service.UserDetailsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(UserCacheProperties.class)
+public class UserCacheConfig {
+
+    @Bean
+    public UserDetailsCache userDetailsCache(UserCacheProperties userCacheProperties, MeterRegistry meterRegistry) {
+        UserDetailsCache userDetailsCache = new UserDetailsCache(userCacheProperties);
+        CaffeineCacheMetrics.monitor(meterRegistry, userDetailsCache.getNativeCache().synchronous(), "userDetails");
+        return userDetailsCache;
+    }
+}
@@ -0,0 +1,26 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the in-process cache of user details looked up by username.
+ */
+@Data
+@ConfigurationProperties("app.user-cache")
+public class UserCacheProperties {
+
+    private long maximumSize = 10_000;
+
+    /**
+     * How long a found user stays cached.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * How long an unknown username stays cached.
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+}
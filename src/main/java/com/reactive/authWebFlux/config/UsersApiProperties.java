@@ -0,0 +1,57 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.service.UserEvents;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Paging of GET /api/users, bulk import, the user event stream and the username availability filter.
+ */
+@Data
+@ConfigurationProperties("app.users-api")
+public class UsersApiProperties {
+
+    /**
+     * Page size used when the request has no limit.
+     */
+    private int defaultPageSize = 100;
+
+    /**
+     * Upper bound for the requested limit, also the chunk size of NDJSON streaming.
+     */
+    private int maxPageSize = 500;
+
+    /**
+     * Number of users written by one insert statement of POST /api/users/batch.
+     */
+    private int importChunkSize = 500;
+
+    /**
+     * Number of passwords of POST /api/users/batch hashed in parallel.
+     */
+    private int importHashConcurrency = 4;
+
+    /**
+     * Created users held for one slow subscriber of GET /api/users/events.
+     */
+    private int eventBufferSize = 256;
+
+    private UserEvents.OverflowPolicy eventOverflowPolicy = UserEvents.OverflowPolicy.DISCONNECT;
+
+    /**
+     * Interval of SSE comments that keep idle event streams open through proxies.
+     */
+    private Duration eventHeartbeat = Duration.ofSeconds(15);
+
+    /**
+     * Usernames the availability filter is sized for, more make it answer "maybe taken" more often.
+     */
+    private long availabilityExpectedUsernames = 1_000_000;
+
+    /**
+     * Share of free usernames the availability filter still sends to the database at the expected size.
+     */
+    private double availabilityFalsePositiveRate = 0.01;
+}
@@ -0,0 +1,55 @@
+package com.reactive.authWebFlux.config;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.reactive.authWebFlux.view.PageCacheFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ViewCacheProperties.class)
+@ConditionalOnProperty(prefix = "app.view-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ViewCacheConfig {
+
+    /**
+     * Paths served by {@link RoutesConfig#views()} and the templates they render. The signup page embeds the
+     * session's CSRF token, so it is rendered per request.
+     */
+    private static final Map<String, String> VIEW_TEMPLATES = Map.of("/", "home");
+
+    @Bean
+    public PageCacheFilter pageCacheFilter(ViewCacheProperties properties, ThymeleafProperties thymeleafProperties,
+                                           ResourceLoader resourceLoader, MeterRegistry meterRegistry) {
+        boolean brotli = properties.isBrotli() && Brotli4jLoader.isAvailable();
+        if (properties.isBrotli() && !brotli) {
+            log.warn("Brotli is not available on this platform, pages are precompressed with gzip only");
+        }
+        ToLongFunction<String> templateVersion = thymeleafProperties.isCache()
+                ? template -> 0L
+                : template -> lastModified(resourceLoader,
+                thymeleafProperties.getPrefix() + template + thymeleafProperties.getSuffix());
+        PageCacheFilter filter = new PageCacheFilter(VIEW_TEMPLATES, properties.getMaximumSize(), brotli,
+                templateVersion);
+        CaffeineCacheMetrics.monitor(meterRegistry, filter.getNativeCache(), "renderedPages");
+        return filter;
+    }
+
+    private static long lastModified(ResourceLoader resourceLoader, String location) {
+        try {
+            return resourceLoader.getResource(location).lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
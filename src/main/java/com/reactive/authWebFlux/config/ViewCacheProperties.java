@@ -0,0 +1,24 @@
+package com.reactive.authWebFlux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * In-process cache of the rendered home page.
+ */
+@Data
+@ConfigurationProperties("app.view-cache")
+public class ViewCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound of cached page variants; every authenticated user gets their own.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Also keep a brotli variant when the native brotli library can be loaded.
+     */
+    private boolean brotli = true;
+}
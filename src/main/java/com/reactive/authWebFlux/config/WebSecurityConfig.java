@@ -1,32 +1,99 @@
 package com.reactive.authWebFlux.config;
 
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.security.TokenSecurityContextRepository;
+import com.reactive.authWebFlux.service.LoginRecorder;
+import com.reactive.authWebFlux.service.PasswordHashingService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.DelegatingServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.authentication.RedirectServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.authentication.ServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.authentication.logout.SecurityContextServerLogoutHandler;
+import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.security.web.server.savedrequest.ServerRequestCache;
+import org.springframework.security.web.server.savedrequest.WebSessionServerRequestCache;
+import reactor.core.publisher.Mono;
 
 @EnableWebFluxSecurity
 public class WebSecurityConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public ReactiveAuthenticationManager authenticationManager(ReactiveUserDetailsService userDetailsService,
+                                                               ReactiveUserDetailsPasswordService passwordService,
+                                                               PasswordHashingService hashingService) {
+        UserDetailsRepositoryReactiveAuthenticationManager manager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        manager.setPasswordEncoder(hashingService.getTimedEncoder());
+        manager.setUserDetailsPasswordService(passwordService);
+        manager.setScheduler(hashingService.getScheduler());
+        return authentication -> manager.authenticate(authentication)
+                .onErrorMap(PasswordHashingService::mapRejection);
     }
 
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity httpSecurity) {
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity httpSecurity,
+                                                         ObjectProvider<TokenSecurityContextRepository> tokens,
+                                                         ObjectProvider<LoginRecorder> loginRecorder) {
+        tokens.ifAvailable(tokenRepository -> useTokens(httpSecurity, tokenRepository));
+        loginRecorder.ifAvailable(recorder -> recordLogins(httpSecurity, recorder,
+                tokens.getIfAvailable() == null ? new WebSessionServerRequestCache()
+                        : NoOpServerRequestCache.getInstance()));
         return httpSecurity
                 .formLogin().and()
                 .httpBasic().disable()
                 .authorizeExchange()
                 .pathMatchers("/", "/login", "/signup").permitAll()
+                .pathMatchers("/actuator/health").permitAll()
+                .pathMatchers("/actuator/prometheus").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.POST, "/api/users").permitAll()
+                .pathMatchers(HttpMethod.POST, "/api/users/batch").hasRole("ADMIN")
+                .pathMatchers(HttpMethod.POST, "/api/roles/refresh").hasRole("ADMIN")
+                .pathMatchers(HttpMethod.GET, "/api/users/available").permitAll()
                 .pathMatchers(HttpMethod.GET, "/api/users/**").hasRole("ADMIN")
                 .anyExchange().authenticated()
                 .and()
                 .build();
     }
+
+    /**
+     * Buffers each successful form login for the write-behind update of the user's login columns, then
+     * redirects as the default handler does, with the request cache in use.
+     */
+    private void recordLogins(ServerHttpSecurity httpSecurity, LoginRecorder recorder,
+                              ServerRequestCache requestCache) {
+        ServerAuthenticationSuccessHandler record = (exchange, authentication) -> Mono.fromRunnable(() -> {
+            Object principal = authentication.getPrincipal();
+            if (principal instanceof User && ((User) principal).getId() != null) {
+                recorder.record(((User) principal).getId());
+            }
+        });
+        RedirectServerAuthenticationSuccessHandler redirect = new RedirectServerAuthenticationSuccessHandler();
+        redirect.setRequestCache(requestCache);
+        httpSecurity.formLogin().authenticationSuccessHandler(
+                new DelegatingServerAuthenticationSuccessHandler(record, redirect));
+    }
+
+    /**
+     * Keeps authentication, CSRF tokens and saved requests out of the web session.
+     */
+    private void useTokens(ServerHttpSecurity httpSecurity, TokenSecurityContextRepository tokenRepository) {
+        SecurityContextServerLogoutHandler logoutHandler = new SecurityContextServerLogoutHandler();
+        logoutHandler.setSecurityContextRepository(tokenRepository);
+        httpSecurity
+                .securityContextRepository(tokenRepository)
+                .formLogin().securityContextRepository(tokenRepository).and()
+                .logout().logoutHandler(logoutHandler).and()
+                .csrf().csrfTokenRepository(CookieServerCsrfTokenRepository.withHttpOnlyFalse()).and()
+                .requestCache().requestCache(NoOpServerRequestCache.getInstance());
+    }
 }
@@ -1,23 +1,53 @@
 package com.reactive.authWebFlux.config;
 
-import io.netty.channel.nio.NioEventLoopGroup;
+import com.reactive.authWebFlux.metrics.StartupTimings;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorResourceFactory;
+import reactor.netty.resources.LoopResources;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
 @Configuration
+@EnableConfigurationProperties(ServerTransportProperties.class)
 public class WebServerConfig {
 
     @Bean
-    public NioEventLoopGroup nioEventLoopGroup() {
-        return new NioEventLoopGroup(1);
-    }
-
-    @Bean
-    public ReactorResourceFactory reactorResourceFactory(NioEventLoopGroup eventLoopGroup) {
+    public ReactorResourceFactory reactorResourceFactory(ServerTransportProperties properties) {
         ReactorResourceFactory f = new ReactorResourceFactory();
-        f.setLoopResources(b -> eventLoopGroup);
+        f.setLoopResourcesSupplier(() -> LoopResources.create("http",
+                properties.getAcceptThreads(), properties.getWorkerThreads(), true));
         f.setUseGlobalResources(false);
         return f;
     }
+
+    @Bean
+    public NettyServerCustomizer transportCustomizer(ReactorResourceFactory resourceFactory,
+                                                     ServerTransportProperties properties,
+                                                     StartupTimings startupTimings) {
+        boolean useEpoll = properties.isNativeTransport() && Epoll.isAvailable();
+        log.info("Netty transport: {}, {} accept and {} worker loops",
+                useEpoll ? "epoll" : "nio", properties.getAcceptThreads(), properties.getWorkerThreads());
+        AtomicLong bindStart = new AtomicLong();
+        return httpServer -> {
+            httpServer = httpServer
+                    .doOnBind(config -> bindStart.set(System.nanoTime()))
+                    .doOnBound(server -> startupTimings.record("netty-bind",
+                            Duration.ofNanos(System.nanoTime() - bindStart.get())))
+                    .runOn(resourceFactory.getLoopResources(), useEpoll)
+                    .option(ChannelOption.SO_BACKLOG, properties.getBacklog())
+                    .childOption(ChannelOption.TCP_NODELAY, properties.isTcpNoDelay());
+            return useEpoll && properties.isReusePort()
+                    ? httpServer.option(EpollChannelOption.SO_REUSEPORT, true)
+                    : httpServer;
+        };
+    }
 }
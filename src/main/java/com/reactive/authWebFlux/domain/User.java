@@ -1,19 +1,28 @@
 package com.reactive.authWebFlux.domain;
 
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
 
+/**
+ * Read from rows through the no-argument constructor and setters, the all-arguments constructor exists for the
+ * builder only: Spring Data has no persistent property for the transient {@link #authority} to pass to it.
+ */
 @Builder
 @Data
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
 @Table("users")
 public class User implements UserDetails {
 
@@ -24,13 +33,17 @@ public class User implements UserDetails {
 
     private String password;
 
-    private String role;
-
     private Integer roleId;
 
+    /**
+     * Authority of {@link #roleId}, resolved in memory instead of being read from the database.
+     */
+    @Transient
+    private GrantedAuthority authority;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority(role));
+        return authority == null ? Collections.emptyList() : Collections.singletonList(authority);
     }
 
     @Override
@@ -0,0 +1,24 @@
+package com.reactive.authWebFlux.domain;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Logins of one user not yet written to {@code users}: the latest login time and how many there were.
+ */
+@Data
+public class UserLogin {
+
+    private final long userId;
+
+    private final Instant lastLoginAt;
+
+    private final int count;
+
+    public UserLogin merge(UserLogin other) {
+        return new UserLogin(userId,
+                lastLoginAt.isAfter(other.lastLoginAt) ? lastLoginAt : other.lastLoginAt,
+                count + other.count);
+    }
+}
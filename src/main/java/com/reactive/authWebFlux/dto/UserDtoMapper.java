@@ -0,0 +1,17 @@
+package com.reactive.authWebFlux.dto;
+
+import com.reactive.authWebFlux.domain.User;
+
+/**
+ * Plain field copy from {@link User} to {@link UserDto}, used on the API routes instead of
+ * the reflective {@code ModelMapper}.
+ */
+public class UserDtoMapper {
+
+    public UserDto toDto(User user) {
+        UserDto dto = new UserDto();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        return dto;
+    }
+}
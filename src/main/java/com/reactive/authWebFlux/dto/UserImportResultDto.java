@@ -0,0 +1,22 @@
+package com.reactive.authWebFlux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDto {
+
+    /**
+     * OVERLOADED rows were not attempted because password hashing was at capacity, they can be sent again.
+     */
+    public enum Status {
+        CREATED, DUPLICATE, INVALID, OVERLOADED
+    }
+
+    private String username;
+    private Long id;
+    private Status status;
+}
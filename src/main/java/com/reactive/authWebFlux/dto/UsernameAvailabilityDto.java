@@ -0,0 +1,14 @@
+package com.reactive.authWebFlux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsernameAvailabilityDto {
+
+    private String username;
+    private boolean available;
+}
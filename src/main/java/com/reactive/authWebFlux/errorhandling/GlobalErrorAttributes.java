@@ -1,15 +1,22 @@
 package com.reactive.authWebFlux.errorhandling;
 
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
 import com.reactive.authWebFlux.exception.UserAlreadyExistsException;
 import com.reactive.authWebFlux.exception.UserNotFoundException;
+import io.r2dbc.spi.R2dbcTimeoutException;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
 import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.pool.PoolAcquirePendingLimitException;
+import reactor.pool.PoolAcquireTimeoutException;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class GlobalErrorAttributes extends DefaultErrorAttributes {
@@ -23,13 +30,37 @@ public class GlobalErrorAttributes extends DefaultErrorAttributes {
             errorStatus = HttpStatus.NOT_ACCEPTABLE;
         } else if (error instanceof UserNotFoundException) {
             errorStatus = HttpStatus.NOT_FOUND;
+        } else if (error instanceof ResponseStatusException) {
+            errorStatus = ((ResponseStatusException) error).getStatus();
+        } else if (isOverload(error)) {
+            errorStatus = HttpStatus.SERVICE_UNAVAILABLE;
         } else {
             errorStatus = HttpStatus.INTERNAL_SERVER_ERROR;
         }
         map.put("status", errorStatus.value());
-        map.put("message", error.getMessage());
+        map.put("message", error instanceof ResponseStatusException
+                ? ((ResponseStatusException) error).getReason()
+                : error.getMessage());
         return map;
     }
 
+    /**
+     * Spring wraps pool acquire failures in {@code DataAccessResourceFailureException}, so the whole cause
+     * chain is checked.
+     */
+    private static boolean isOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceOverloadedException
+                    || cause instanceof PoolAcquirePendingLimitException
+                    || cause instanceof PoolAcquireTimeoutException
+                    || cause instanceof R2dbcTimeoutException
+                    || cause instanceof TimeoutException
+                    || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
 
@@ -1,5 +1,7 @@
 package com.reactive.authWebFlux.errorhandling;
 
+import com.reactive.authWebFlux.config.CodecConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
@@ -12,6 +14,8 @@ import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.*;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.springframework.boot.web.error.ErrorAttributeOptions.Include.MESSAGE;
@@ -19,9 +23,12 @@ import static org.springframework.boot.web.error.ErrorAttributeOptions.Include.M
 @Component
 public class GlobalErrorWebExceptionHandler extends AbstractErrorWebExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     public GlobalErrorWebExceptionHandler(ErrorAttributes g, ApplicationContext applicationContext,
-                                          ServerCodecConfigurer serverCodecConfigurer) {
+                                          ServerCodecConfigurer serverCodecConfigurer, MeterRegistry meterRegistry) {
         super(g, new WebProperties.Resources(), applicationContext);
+        this.meterRegistry = meterRegistry;
         super.setMessageWriters(serverCodecConfigurer.getWriters());
         super.setMessageReaders(serverCodecConfigurer.getReaders());
     }
@@ -33,10 +40,26 @@ public class GlobalErrorWebExceptionHandler extends AbstractErrorWebExceptionHan
 
     private Mono<ServerResponse> renderErrorResponse(ServerRequest request) {
         Map<String, Object> error = getErrorAttributes(request, ErrorAttributeOptions.of(MESSAGE));
-        return ServerResponse.status(getHttpStatus(error)).contentType(MediaType.APPLICATION_JSON)
+        int status = getHttpStatus(error);
+        meterRegistry.counter("app.errors",
+                "status", String.valueOf(status),
+                "exception", getError(request).getClass().getSimpleName()).increment();
+        return ServerResponse.status(status).contentType(errorMediaType(request))
                 .body(BodyInserters.fromValue(error));
     }
 
+    /**
+     * First of the API media types the client accepts, JSON when it accepts none of them.
+     */
+    private static MediaType errorMediaType(ServerRequest request) {
+        List<MediaType> accepted = new ArrayList<>(request.headers().accept());
+        MediaType.sortBySpecificityAndQuality(accepted);
+        return accepted.stream()
+                .flatMap(acceptedType -> CodecConfig.API_MEDIA_TYPES.stream().filter(acceptedType::includes))
+                .findFirst()
+                .orElse(MediaType.APPLICATION_JSON);
+    }
+
     private int getHttpStatus(Map<String, Object> errorAttributes) {
         return (int) errorAttributes.get("status");
     }
@@ -0,0 +1,7 @@
+package com.reactive.authWebFlux.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(final String message) {
+        super(message);
+    }
+}
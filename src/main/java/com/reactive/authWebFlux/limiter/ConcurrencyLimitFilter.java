@@ -0,0 +1,94 @@
+package com.reactive.authWebFlux.limiter;
+
+import com.reactive.authWebFlux.config.CodecConfig;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.PathPatternParserServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sheds user API requests with 503 once the limiter of their route group has no free slot.
+ * Runs after Spring Security so that only authorized requests take a slot. Streamed responses
+ * hold a slot but do not feed the latency estimate; the open-ended user event stream takes none,
+ * and neither does the public username availability check, which the login throttle limits per address.
+ */
+public class ConcurrencyLimitFilter implements WebFilter, Ordered {
+
+    private final Map<ServerWebExchangeMatcher, GradientConcurrencyLimiter> limiters = new LinkedHashMap<>();
+
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(GradientConcurrencyLimiter adminReadLimiter,
+                                  GradientConcurrencyLimiter signupLimiter,
+                                  Duration retryAfter) {
+        limiters.put(new AndServerWebExchangeMatcher(
+                        new PathPatternParserServerWebExchangeMatcher("/api/users/**", HttpMethod.GET),
+                        new NegatedServerWebExchangeMatcher(new OrServerWebExchangeMatcher(
+                                new PathPatternParserServerWebExchangeMatcher("/api/users/events"),
+                                new PathPatternParserServerWebExchangeMatcher("/api/users/available")))),
+                adminReadLimiter);
+        limiters.put(new PathPatternParserServerWebExchangeMatcher("/api/users", HttpMethod.POST),
+                signupLimiter);
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return findLimiter(exchange)
+                .flatMap(limiter -> limiter.isPresent()
+                        ? limit(limiter.get(), exchange, chain)
+                        : chain.filter(exchange));
+    }
+
+    private Mono<Optional<GradientConcurrencyLimiter>> findLimiter(ServerWebExchange exchange) {
+        return Flux.fromIterable(limiters.entrySet())
+                .concatMap(entry -> entry.getKey().matches(exchange)
+                        .filter(ServerWebExchangeMatcher.MatchResult::isMatch)
+                        .map(match -> entry.getValue()))
+                .next()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private Mono<Void> limit(GradientConcurrencyLimiter limiter, ServerWebExchange exchange,
+                             WebFilterChain chain) {
+        if (!limiter.tryAcquire()) {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return exchange.getResponse().setComplete();
+        }
+        boolean streaming = CodecConfig.acceptsAny(exchange.getRequest().getHeaders().getAccept(),
+                CodecConfig.STREAMING_MEDIA_TYPES);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        limiter.release();
+                        if (signal == SignalType.ON_COMPLETE && !streaming) {
+                            limiter.onSample(System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactive.authWebFlux.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that follows the ratio of the long-term to the latest round trip time.
+ * While latency stays at its baseline the limit grows by its square root per sample, when latency
+ * rises above the baseline the limit shrinks by the same ratio, down to half per sample.
+ */
+public class GradientConcurrencyLimiter {
+
+    /**
+     * Samples averaged into the long-term round trip time.
+     */
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private volatile double limit;
+
+    // guarded by this
+    private double longRtt;
+
+    // guarded by this
+    private long samples;
+
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * Takes a slot if fewer than the current limit are in flight, every successful call must be
+     * followed by {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejections.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized void onSample(long rttNanos) {
+        double rtt = Math.max(1, rttNanos);
+        samples++;
+        longRtt = samples == 1 ? rtt : longRtt + (rtt - longRtt) / Math.min(samples, LONG_WINDOW);
+        if (longRtt / rtt > 2) {
+            // back from an overload, let the baseline come down quickly
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        if (inFlight.get() < current / 2) {
+            // not enough traffic to tell whether a higher limit would hold
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, longRtt / rtt));
+        double estimate = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
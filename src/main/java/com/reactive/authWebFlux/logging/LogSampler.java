@@ -0,0 +1,44 @@
+package com.reactive.authWebFlux.logging;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks the entries of one log category that are written: failures, entries at or above the slow threshold
+ * and a random share of the rest. Callers ask before formatting anything, so skipped entries cost a
+ * comparison and a random number.
+ */
+public class LogSampler {
+
+    private final boolean enabled;
+
+    private final double sampleRate;
+
+    private final long slowThresholdNanos;
+
+    private final LongAdder written = new LongAdder();
+
+    public LogSampler(boolean enabled, double sampleRate, Duration slowThreshold) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean shouldLog(long elapsedNanos, boolean failed) {
+        boolean log = enabled && (failed || elapsedNanos >= slowThresholdNanos
+                || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if (log) {
+            written.increment();
+        }
+        return log;
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+}
@@ -0,0 +1,86 @@
+package com.reactive.authWebFlux.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every request a correlation id, taken from {@code X-Request-Id} when the client sent a usable one,
+ * echoes it in the response and puts it into the Reactor context for the SQL log. Sampled requests are
+ * written to the {@code requests} logger once the response completes. Runs first so that requests shed by
+ * the throttling and limiting filters carry an id as well.
+ */
+@Slf4j(topic = "requests")
+public class RequestLogFilter implements WebFilter, Ordered {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    /**
+     * Reactor context key of the correlation id.
+     */
+    public static final String REQUEST_ID = "requestId";
+
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final LogSampler sampler;
+
+    public RequestLogFilter(LogSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String requestId = requestId(exchange.getRequest());
+        exchange.getResponse().getHeaders().set(REQUEST_ID_HEADER, requestId);
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (sampler.shouldLog(elapsed, signal == SignalType.ON_ERROR || isServerError(exchange))) {
+                        ServerHttpRequest request = exchange.getRequest();
+                        log.info("request_id={} method={} path={} status={} outcome={} duration_ms={}",
+                                requestId, request.getMethodValue(), request.getPath().value(),
+                                exchange.getResponse().getRawStatusCode(), outcome(signal), elapsed / 1_000_000);
+                    }
+                })
+                .contextWrite(Context.of(REQUEST_ID, requestId));
+    }
+
+    private static String requestId(ServerHttpRequest request) {
+        String requestId = request.getHeaders().getFirst(REQUEST_ID_HEADER);
+        if (requestId != null && VALID_REQUEST_ID.matcher(requestId).matches()) {
+            return requestId;
+        }
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static boolean isServerError(ServerWebExchange exchange) {
+        Integer status = exchange.getResponse().getRawStatusCode();
+        return status != null && status >= 500;
+    }
+
+    static String outcome(SignalType signal) {
+        switch (signal) {
+            case ON_ERROR:
+                return "error";
+            case CANCEL:
+                return "cancelled";
+            default:
+                return "completed";
+        }
+    }
+}
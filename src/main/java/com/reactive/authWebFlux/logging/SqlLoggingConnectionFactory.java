@@ -0,0 +1,127 @@
+package com.reactive.authWebFlux.logging;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Driver connection factory whose statements report their SQL, duration and request correlation id to
+ * the {@code sql} logger, for the executions the sampler picks. A statement is timed from subscription
+ * until the driver completes, fails or cancels its results. Connections and statements are JDK proxies
+ * over the driver's public interfaces, everything but statement creation and execution is passed through.
+ */
+@Slf4j(topic = "sql")
+public class SqlLoggingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConnectionFactory delegate;
+
+    private final LogSampler sampler;
+
+    public SqlLoggingConnectionFactory(ConnectionFactory delegate, LogSampler sampler) {
+        this.delegate = delegate;
+        this.sampler = sampler;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.from(delegate.create()).map(this::decorate);
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    private Connection decorate(Connection connection) {
+        return (Connection) proxy(connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return method.getName().equals("createStatement") && result instanceof Statement
+                    ? decorate((Statement) result, (String) args[0])
+                    : result;
+        });
+    }
+
+    private Statement decorate(Statement statement, String sql) {
+        return (Statement) proxy(statement, (proxy, method, args) -> {
+            if (method.getName().equals("execute") && method.getParameterCount() == 0) {
+                return execute(statement, sql);
+            }
+            Object result = invoke(statement, method, args);
+            return result == statement ? proxy : result;
+        });
+    }
+
+    private Publisher<? extends Result> execute(Statement statement, String sql) {
+        return Flux.deferContextual(context -> {
+            long start = System.nanoTime();
+            return Flux.from(statement.execute())
+                    .doFinally(signal -> {
+                        long elapsed = System.nanoTime() - start;
+                        if (sampler.shouldLog(elapsed, signal == SignalType.ON_ERROR)) {
+                            log.info("request_id={} outcome={} duration_ms={} sql=\"{}\"",
+                                    context.getOrDefault(RequestLogFilter.REQUEST_ID, "-"),
+                                    RequestLogFilter.outcome(signal), elapsed / 1_000_000,
+                                    WHITESPACE.matcher(sql).replaceAll(" ").trim());
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Proxy implementing the public interfaces of the delegate and {@link Wrapped}, with identity equality.
+     */
+    private static Object proxy(Object delegate, InvocationHandler handler) {
+        Set<Class<?>> interfaces = ClassUtils.getAllInterfacesAsSet(delegate);
+        interfaces.removeIf(type -> !Modifier.isPublic(type.getModifiers()));
+        interfaces.add(Wrapped.class);
+        return Proxy.newProxyInstance(delegate.getClass().getClassLoader(), interfaces.toArray(new Class<?>[0]),
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "unwrap":
+                            return method.getParameterCount() == 0 ? delegate : handler.invoke(proxy, method, args);
+                        case "equals":
+                            return method.getParameterCount() == 1 && proxy == args[0];
+                        case "hashCode":
+                            return method.getParameterCount() == 0
+                                    ? System.identityHashCode(proxy) : handler.invoke(proxy, method, args);
+                        case "toString":
+                            return method.getParameterCount() == 0
+                                    ? delegate.toString() : handler.invoke(proxy, method, args);
+                        default:
+                            return handler.invoke(proxy, method, args);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
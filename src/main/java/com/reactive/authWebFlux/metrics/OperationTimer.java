@@ -0,0 +1,51 @@
+package com.reactive.authWebFlux.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records the time from subscription to termination of reactive service and repository calls
+ * as {@code app.operation}, tagged with the operation name and its outcome.
+ */
+@AllArgsConstructor
+@Component
+public class OperationTimer {
+
+    public static final String METRIC = "app.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> Mono<T> time(String operation, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> stop(sample, operation, signal));
+        });
+    }
+
+    public <T> Flux<T> time(String operation, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return flux.doFinally(signal -> stop(sample, operation, signal));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String operation, SignalType signal) {
+        sample.stop(meterRegistry.timer(METRIC, "operation", operation, "outcome", outcome(signal)));
+    }
+
+    private static String outcome(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancel";
+        }
+    }
+}
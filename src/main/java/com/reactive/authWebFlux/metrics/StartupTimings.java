@@ -0,0 +1,60 @@
+package com.reactive.authWebFlux.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the duration of startup phases and logs them as a single line once the application is ready,
+ * e.g. {@code Startup phases: flyway=412ms, netty-bind=9ms, context=3120ms, r2dbc-warmup=140ms, ready=3301ms}.
+ * {@code context} and {@code ready} are measured from JVM start.
+ */
+@Slf4j
+@Component
+public class StartupTimings {
+
+    private final Map<String, Duration> phases = new LinkedHashMap<>();
+
+    public synchronized void record(String phase, Duration duration) {
+        phases.put(phase, duration);
+    }
+
+    public <T> T time(String phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    public synchronized Map<String, Duration> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        record("context", sinceJvmStart());
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        record("ready", sinceJvmStart());
+        log.info("Startup phases: {}", getPhases().entrySet().stream()
+                .map(phase -> phase.getKey() + "=" + phase.getValue().toMillis() + "ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+    private static Duration sinceJvmStart() {
+        return Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
@@ -0,0 +1,23 @@
+package com.reactive.authWebFlux.repository;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.domain.UserLogin;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface UserBatchRepository {
+
+    /**
+     * Inserts all users in one multi-row statement, skipping usernames that are taken, ignoring case.
+     * Emits only the rows that were inserted.
+     */
+    Flux<User> insertAllIfAbsent(List<User> users);
+
+    /**
+     * Sets the last login time and adds to the login count of all given users in one statement.
+     * Emits the number of users updated.
+     */
+    Mono<Integer> recordLogins(List<UserLogin> logins);
+}
@@ -0,0 +1,69 @@
+package com.reactive.authWebFlux.repository;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.domain.UserLogin;
+import lombok.AllArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@AllArgsConstructor
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<User> insertAllIfAbsent(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("insert into users(username, password, role_id) values ");
+        for (int i = 0; i < users.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:username").append(i)
+                    .append(", :password").append(i)
+                    .append(", :roleId").append(i).append(')');
+        }
+        sql.append(" on conflict ((lower(username))) do nothing returning id, username, password, role_id");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            spec = spec.bind("username" + i, user.getUsername())
+                    .bind("password" + i, user.getPassword())
+                    .bind("roleId" + i, user.getRoleId());
+        }
+        return spec.map((row, metadata) -> User.builder()
+                        .id(row.get("id", Long.class))
+                        .username(row.get("username", String.class))
+                        .password(row.get("password", String.class))
+                        .roleId(row.get("role_id", Integer.class))
+                        .build())
+                .all();
+    }
+
+    @Override
+    public Mono<Integer> recordLogins(List<UserLogin> logins) {
+        if (logins.isEmpty()) {
+            return Mono.just(0);
+        }
+        StringBuilder sql = new StringBuilder("update users set last_login_at = greatest(users.last_login_at, "
+                + "v.last_login_at), login_count = users.login_count + v.logins from (values ");
+        for (int i = 0; i < logins.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(cast(:id").append(i).append(" as bigint)")
+                    .append(", cast(:at").append(i).append(" as timestamptz)")
+                    .append(", cast(:logins").append(i).append(" as int))");
+        }
+        sql.append(") as v(id, last_login_at, logins) where users.id = v.id");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < logins.size(); i++) {
+            UserLogin login = logins.get(i);
+            spec = spec.bind("id" + i, login.getUserId())
+                    .bind("at" + i, login.getLastLoginAt())
+                    .bind("logins" + i, login.getCount());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+}
@@ -1,14 +1,44 @@
 package com.reactive.authWebFlux.repository;
 
 import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDto;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+public interface UserRepository extends ReactiveCrudRepository<User, Long>, UserBatchRepository {
 
-    @Query("select u.*,r.role_name as role from users u join roles r on u.role_id = r.id " +
-            "where LOWER(u.username)=LOWER(:username)")
+    /**
+     * User without its authority, which is resolved from {@code role_id} by RoleAuthorities.
+     */
+    @Query("select * from users where LOWER(username)=LOWER(:username)")
     Mono<User> findByUsernameWithQuery(@Param("username") String username);
+
+    /**
+     * Whether the username is taken, ignoring case. Answered from the unique index without loading the row.
+     */
+    @Query("select exists(select 1 from users where LOWER(username)=LOWER(:username))")
+    Mono<Boolean> existsByUsernameIgnoreCase(@Param("username") String username);
+
+    /**
+     * Inserts the user unless the username is taken, ignoring case.
+     * Empty when the unique index on LOWER(username) rejects the row.
+     */
+    @Query("insert into users(username, password, role_id) values (:username, :password, :roleId) " +
+            "on conflict ((lower(username))) do nothing returning *")
+    Mono<User> insertIfAbsent(@Param("username") String username, @Param("password") String password,
+                              @Param("roleId") int roleId);
+
+    @Modifying
+    @Query("update users set password = :password where id = :id")
+    Mono<Integer> updatePassword(@Param("id") long id, @Param("password") String password);
+
+    @Query("select id, username from users where id > :after order by id limit :limit")
+    Flux<UserDto> findPage(@Param("after") long after, @Param("limit") int limit);
+
+    @Query("select id, username from users where id = :id")
+    Mono<UserDto> findDtoById(@Param("id") long id);
 }
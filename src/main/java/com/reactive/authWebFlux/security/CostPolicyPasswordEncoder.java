@@ -0,0 +1,91 @@
+package com.reactive.authWebFlux.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt at a policy cost. Hashes of any cost still match; {@link #upgradeEncoding} reports hashes below the
+ * policy cost, so that they are replaced on the next login. Stronger hashes are kept: instances on different
+ * hardware may run at different costs, and rehashing downwards would weaken them and flip them back and forth.
+ */
+public class CostPolicyPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private static final int CALIBRATION_SAMPLES = 3;
+
+    private final int cost;
+
+    private final BCryptPasswordEncoder encoder;
+
+    public CostPolicyPasswordEncoder(int cost) {
+        this.cost = cost;
+        this.encoder = new BCryptPasswordEncoder(cost);
+    }
+
+    /**
+     * Encoder at the highest cost between {@code minCost} and {@code maxCost} whose hash is expected to take
+     * no longer than the budget on this machine. One hash is timed at {@code minCost}; every further cost
+     * step doubles the work.
+     */
+    public static CostPolicyPasswordEncoder calibrated(Duration budget, int minCost, int maxCost) {
+        return new CostPolicyPasswordEncoder(costWithin(budget, minCost, maxCost, timeHash(minCost)));
+    }
+
+    static int costWithin(Duration budget, int minCost, int maxCost, long nanosAtMinCost) {
+        long budgetNanos = budget.toNanos();
+        int cost = minCost;
+        long nanos = nanosAtMinCost;
+        while (cost < maxCost && nanos * 2 <= budgetNanos) {
+            nanos *= 2;
+            cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * Median of a few hashes after a warmup hash.
+     */
+    private static long timeHash(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        encoder.encode(CALIBRATION_PASSWORD);
+        long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return encoder.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < cost;
+    }
+}
@@ -0,0 +1,179 @@
+package com.reactive.authWebFlux.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactive.authWebFlux.config.LoginThrottleProperties;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.server.util.matcher.PathPatternParserServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers form login attempts with 429 once the client address or the submitted username has used up its
+ * token bucket, so that credential stuffing is shed before the user lookup and the BCrypt compare.
+ * Username availability checks draw on the same per-address bucket, so that the public endpoint cannot be
+ * used to enumerate accounts faster than logins can guess them.
+ * Buckets live in size-bounded maps that forget keys not seen for a while. Runs just ahead of the
+ * Spring Security filter chain.
+ */
+public class LoginThrottleFilter implements WebFilter, Ordered {
+
+    private static final String UNKNOWN_ADDRESS = "unknown";
+
+    /**
+     * Spring Security registers its WebFilterChainProxy at -100.
+     */
+    private static final int ORDER = -101;
+
+    private final ServerWebExchangeMatcher loginMatcher =
+            new PathPatternParserServerWebExchangeMatcher("/login", HttpMethod.POST);
+
+    private final ServerWebExchangeMatcher availabilityMatcher =
+            new PathPatternParserServerWebExchangeMatcher("/api/users/available", HttpMethod.GET);
+
+    private final Cache<String, TokenBucket> userBuckets;
+
+    private final Cache<String, TokenBucket> addressBuckets;
+
+    private final int userBurst;
+
+    private final long userIntervalMillis;
+
+    private final int addressBurst;
+
+    private final long addressIntervalMillis;
+
+    private final Clock clock;
+
+    private final LongAdder userRejections = new LongAdder();
+
+    private final LongAdder addressRejections = new LongAdder();
+
+    public LoginThrottleFilter(LoginThrottleProperties properties, Clock clock) {
+        this.userBuckets = buckets(properties);
+        this.addressBuckets = buckets(properties);
+        this.userBurst = properties.getUserBurst();
+        this.userIntervalMillis = properties.getUserRefillInterval().toMillis();
+        this.addressBurst = properties.getAddressBurst();
+        this.addressIntervalMillis = properties.getAddressRefillInterval().toMillis();
+        this.clock = clock;
+    }
+
+    private static Cache<String, TokenBucket> buckets(LoginThrottleProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(properties.getKeyTtl())
+                .build();
+    }
+
+    public long getUserRejections() {
+        return userRejections.sum();
+    }
+
+    public long getAddressRejections() {
+        return addressRejections.sum();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return loginMatcher.matches(exchange)
+                .flatMap(login -> login.isMatch()
+                        ? throttle(exchange, chain)
+                        : availabilityMatcher.matches(exchange).flatMap(probe -> probe.isMatch()
+                                ? throttleAddress(exchange, chain)
+                                : chain.filter(exchange)));
+    }
+
+    private Mono<Void> throttleAddress(ServerWebExchange exchange, WebFilterChain chain) {
+        long addressWait = acquireAddress(exchange);
+        return addressWait > 0 ? reject(exchange, addressWait) : chain.filter(exchange);
+    }
+
+    private Mono<Void> throttle(ServerWebExchange exchange, WebFilterChain chain) {
+        long addressWait = acquireAddress(exchange);
+        if (addressWait > 0) {
+            return reject(exchange, addressWait);
+        }
+        // form data is cached by the exchange, the login filter reads the same copy later
+        return exchange.getFormData().flatMap(form -> {
+            String username = form.getFirst("username");
+            if (username == null || username.isEmpty()) {
+                return chain.filter(exchange);
+            }
+            long userWait = userBuckets.get(username.toLowerCase(Locale.ROOT), key -> new TokenBucket())
+                    .tryAcquire(clock.millis(), userBurst, userIntervalMillis);
+            if (userWait > 0) {
+                userRejections.increment();
+                return reject(exchange, userWait);
+            }
+            return chain.filter(exchange);
+        });
+    }
+
+    private long acquireAddress(ServerWebExchange exchange) {
+        long wait = addressBuckets.get(clientAddress(exchange), key -> new TokenBucket())
+                .tryAcquire(clock.millis(), addressBurst, addressIntervalMillis);
+        if (wait > 0) {
+            addressRejections.increment();
+        }
+        return wait;
+    }
+
+    private static String clientAddress(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return remoteAddress == null || remoteAddress.getAddress() == null
+                ? UNKNOWN_ADDRESS
+                : remoteAddress.getAddress().getHostAddress();
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, long waitMillis) {
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Token bucket kept as the single time at which it is full again (GCRA), updated with a CAS loop.
+     */
+    static final class TokenBucket {
+
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @return 0 if a token was taken, otherwise the milliseconds until the next one
+         */
+        long tryAcquire(long now, int burst, long intervalMillis) {
+            long tolerance = (burst - 1) * intervalMillis;
+            while (true) {
+                long current = fullAt.get();
+                long start = Math.max(current, now);
+                if (start - now > tolerance) {
+                    return start - now - tolerance;
+                }
+                if (fullAt.compareAndSet(current, start + intervalMillis)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactive.authWebFlux.security;
+
+import com.reactive.authWebFlux.config.TokenProperties;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Keeps the security context in a signed token instead of the web session. The token is written as a cookie
+ * and an {@code X-Auth-Token} header on login, and read from the {@code Authorization: Bearer} header
+ * or the cookie on every request, without touching the session store or the database.
+ */
+@AllArgsConstructor
+public class TokenSecurityContextRepository implements ServerSecurityContextRepository {
+
+    static final String TOKEN_HEADER = "X-Auth-Token";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    private final TokenProperties properties;
+
+    @Override
+    public Mono<Void> save(ServerWebExchange exchange, SecurityContext context) {
+        return Mono.fromRunnable(() -> {
+            if (context == null || context.getAuthentication() == null) {
+                exchange.getResponse().addCookie(cookie("", Duration.ZERO));
+                return;
+            }
+            String token = tokenService.issue(context.getAuthentication());
+            exchange.getResponse().getHeaders().set(TOKEN_HEADER, token);
+            exchange.getResponse().addCookie(cookie(token, tokenService.getTtl()));
+        });
+    }
+
+    @Override
+    public Mono<SecurityContext> load(ServerWebExchange exchange) {
+        return Mono.justOrEmpty(extractToken(exchange))
+                .flatMap(token -> Mono.justOrEmpty(tokenService.verify(token)))
+                .map(SecurityContextImpl::new);
+    }
+
+    private String extractToken(ServerWebExchange exchange) {
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length());
+        }
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(properties.getCookieName());
+        return cookie == null ? null : cookie.getValue();
+    }
+
+    private ResponseCookie cookie(String value, Duration maxAge) {
+        return ResponseCookie.from(properties.getCookieName(), value)
+                .path("/")
+                .httpOnly(true)
+                .secure(properties.isSecureCookie())
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.reactive.authWebFlux.security;
+
+import com.reactive.authWebFlux.config.TokenProperties;
+import com.reactive.authWebFlux.domain.User;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies tokens of the form {@code keyId.payload.signature}. The payload carries the user id,
+ * role, expiry and username; the signature is an HMAC-SHA256 of {@code keyId.payload} with the key of that id.
+ */
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * HMAC-SHA256 keys shorter than the hash output weaken the signature.
+     */
+    private static final int MIN_KEY_BYTES = 32;
+
+    private final Map<String, SecretKeySpec> keys;
+
+    private final String activeKeyId;
+
+    private final Duration ttl;
+
+    private final Clock clock;
+
+    public TokenService(TokenProperties properties, Clock clock) {
+        this.keys = properties.getKeys().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> key(e.getKey(), e.getValue())));
+        if (!keys.containsKey(properties.getActiveKeyId())) {
+            throw new IllegalStateException("No token key configured for id " + properties.getActiveKeyId());
+        }
+        this.activeKeyId = properties.getActiveKeyId();
+        this.ttl = properties.getTtl();
+        this.clock = clock;
+    }
+
+    /**
+     * Fails startup with the offending key id rather than the JCE's "Empty key" on the first login.
+     */
+    private static SecretKeySpec key(String id, String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            throw new IllegalStateException("Token key " + id + " is empty, set app.token.keys." + id
+                    + " to a base64 encoded key of at least " + MIN_KEY_BYTES + " bytes");
+        }
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(encoded.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Token key " + id + " is not valid base64", e);
+        }
+        if (key.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("Token key " + id + " has " + key.length + " bytes, at least "
+                    + MIN_KEY_BYTES + " are required");
+        }
+        return new SecretKeySpec(key, ALGORITHM);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(Authentication authentication) {
+        Long id = authentication.getPrincipal() instanceof User
+                ? ((User) authentication.getPrincipal()).getId()
+                : null;
+        String role = authentication.getAuthorities().stream()
+                .findFirst()
+                .map(GrantedAuthority::getAuthority)
+                .orElse("");
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String payload = (id == null ? "" : id) + ":" + role + ":" + expiresAt + ":" + authentication.getName();
+        String signed = activeKeyId + "." + ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return signed + "." + ENCODER.encodeToString(sign(keys.get(activeKeyId), signed));
+    }
+
+    /**
+     * Authentication carried by the token, empty if the token is malformed, signed with an unknown key,
+     * tampered with or expired.
+     */
+    public Optional<Authentication> verify(String token) {
+        int payloadStart = token.indexOf('.');
+        int signatureStart = token.lastIndexOf('.');
+        if (payloadStart < 0 || payloadStart == signatureStart) {
+            return Optional.empty();
+        }
+        SecretKeySpec key = keys.get(token.substring(0, payloadStart));
+        if (key == null) {
+            return Optional.empty();
+        }
+        try {
+            String signed = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(sign(key, signed), signature)) {
+                return Optional.empty();
+            }
+            String[] fields = new String(DECODER.decode(token.substring(payloadStart + 1, signatureStart)),
+                    StandardCharsets.UTF_8).split(":", 4);
+            if (fields.length != 4 || Long.parseLong(fields[2]) < clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            User user = User.builder()
+                    .id(fields[0].isEmpty() ? null : Long.valueOf(fields[0]))
+                    .authority(fields[1].isEmpty() ? null : new SimpleGrantedAuthority(fields[1]))
+                    .username(fields[3])
+                    .build();
+            return Optional.of(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(SecretKeySpec key, String value) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(value.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
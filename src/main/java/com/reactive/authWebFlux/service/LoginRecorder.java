@@ -0,0 +1,135 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.config.LoginRecorderProperties;
+import com.reactive.authWebFlux.domain.UserLogin;
+import com.reactive.authWebFlux.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers successful logins in memory and writes them periodically with batched updates, so that a login
+ * costs a map merge instead of a database write. Logins of the same user between two flushes are
+ * coalesced into the latest time and a count. The buffer is bounded by user count; logins of further
+ * users are dropped until the next flush. Pending logins are written once more on shutdown, logins
+ * still buffered when the process dies are lost.
+ */
+@Slf4j
+public class LoginRecorder implements DisposableBean {
+
+    private final ConcurrentMap<Long, UserLogin> pending = new ConcurrentHashMap<>();
+
+    private final UserRepository userRepository;
+
+    private final LoginRecorderProperties properties;
+
+    private final Clock clock;
+
+    private final Timer flushTimer;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final Disposable periodicFlush;
+
+    public LoginRecorder(UserRepository userRepository, LoginRecorderProperties properties, Clock clock,
+                         MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.clock = clock;
+        this.flushTimer = Timer.builder("login.recorder.flush").register(meterRegistry);
+        Gauge.builder("login.recorder.pending", pending, ConcurrentMap::size).register(meterRegistry);
+        FunctionCounter.builder("login.recorder.dropped", dropped, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("login.recorder.written", written, LongAdder::sum).register(meterRegistry);
+        this.periodicFlush = Flux.interval(properties.getFlushInterval(), Schedulers.parallel())
+                .onBackpressureDrop()
+                .concatMap(tick -> flush(), 1)
+                .subscribe();
+    }
+
+    public void record(long userId) {
+        UserLogin login = new UserLogin(userId, clock.instant(), 1);
+        if (pending.size() >= properties.getMaxPendingUsers() && !pending.containsKey(userId)) {
+            dropped.increment();
+            return;
+        }
+        pending.merge(userId, login, UserLogin::merge);
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Takes the pending logins out of the buffer and writes them in batches, emitting the number of users
+     * updated. A failed batch is merged back, subject to the bound, so that its logins are retried with the
+     * next flush.
+     */
+    public Mono<Integer> flush() {
+        return Mono.defer(() -> {
+            List<UserLogin> logins = drain();
+            if (logins.isEmpty()) {
+                return Mono.just(0);
+            }
+            Timer.Sample sample = Timer.start();
+            return Flux.fromIterable(logins)
+                    .buffer(properties.getFlushBatchSize())
+                    .concatMap(batch -> userRepository.recordLogins(batch)
+                            .onErrorResume(e -> {
+                                log.warn("Writing logins of {} users failed", batch.size(), e);
+                                batch.forEach(this::requeue);
+                                return Mono.just(0);
+                            }))
+                    .reduce(0, Integer::sum)
+                    .doOnNext(written::add)
+                    .doFinally(signal -> sample.stop(flushTimer));
+        });
+    }
+
+    @Override
+    public void destroy() {
+        periodicFlush.dispose();
+        try {
+            flush().block(properties.getShutdownTimeout());
+        } catch (RuntimeException e) {
+            log.warn("Final login flush did not complete", e);
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Logins of {} users were not written on shutdown", pending.size());
+        }
+    }
+
+    private List<UserLogin> drain() {
+        List<UserLogin> logins = new ArrayList<>(pending.size());
+        for (Long userId : pending.keySet()) {
+            UserLogin login = pending.remove(userId);
+            if (login != null) {
+                logins.add(login);
+            }
+        }
+        return logins;
+    }
+
+    private void requeue(UserLogin login) {
+        if (pending.size() >= properties.getMaxPendingUsers() && !pending.containsKey(login.getUserId())) {
+            dropped.add(login.getCount());
+            return;
+        }
+        pending.merge(login.getUserId(), login, UserLogin::merge);
+    }
+}
@@ -0,0 +1,116 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.config.HashingProperties;
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs password hashing and verification on a bounded executor so that BCrypt never blocks the event loop.
+ * When the queue is full the work is rejected immediately with {@link ServiceOverloadedException}.
+ */
+public class PasswordHashingService implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    private final Scheduler scheduler;
+
+    private final PasswordEncoder timedEncoder;
+
+    public PasswordHashingService(PasswordEncoder encoder, HashingProperties properties, MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Schedulers.fromExecutorService(executor, "hashing");
+        this.timedEncoder = new TimedPasswordEncoder(encoder,
+                Timer.builder("hashing.latency").tag("operation", "encode").register(meterRegistry),
+                Timer.builder("hashing.latency").tag("operation", "matches").register(meterRegistry));
+        Gauge.builder("hashing.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public Mono<String> encode(CharSequence rawPassword) {
+        return onHashingScheduler(() -> timedEncoder.encode(rawPassword));
+    }
+
+    public Mono<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return onHashingScheduler(() -> timedEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Scheduler for components that hash on their own, like the authentication manager.
+     * Rejections surface as {@link RejectedExecutionException} and should go through {@link #mapRejection}.
+     */
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Encoder recording hash latency, to be used together with {@link #getScheduler()}.
+     */
+    public PasswordEncoder getTimedEncoder() {
+        return timedEncoder;
+    }
+
+    public static Throwable mapRejection(Throwable error) {
+        return error instanceof RejectedExecutionException
+                ? new ServiceOverloadedException("Password hashing capacity exceeded")
+                : error;
+    }
+
+    private <T> Mono<T> onHashingScheduler(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .subscribeOn(scheduler)
+                .onErrorMap(PasswordHashingService::mapRejection);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    private static class TimedPasswordEncoder implements PasswordEncoder {
+
+        private final PasswordEncoder delegate;
+
+        private final Timer encodeTimer;
+
+        private final Timer matchesTimer;
+
+        TimedPasswordEncoder(PasswordEncoder delegate, Timer encodeTimer, Timer matchesTimer) {
+            this.delegate = delegate;
+            this.encodeTimer = encodeTimer;
+            this.matchesTimer = matchesTimer;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return encodeTimer.record(() -> delegate.encode(rawPassword));
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.domain.Role;
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.repository.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Immutable table of role id to authority, read from the roles table once all singletons are created and
+ * before the web server starts (see StartupConfig), and replaced as a whole on {@link #refresh()}.
+ * Resolved users share the authority instances of the table.
+ */
+@Slf4j
+@Service
+public class RoleAuthorities {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<Integer, GrantedAuthority> authorities = Map.of();
+
+    public RoleAuthorities(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    public Mono<Map<Integer, GrantedAuthority>> refresh() {
+        return roleRepository.findAll()
+                .collectMap(Role::getId, role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getRoleName()))
+                .map(Map::copyOf)
+                .doOnNext(loaded -> {
+                    authorities = loaded;
+                    log.info("Loaded authorities of {} roles", loaded.size());
+                });
+    }
+
+    public GrantedAuthority authorityOf(Integer roleId) {
+        return roleId == null ? null : authorities.get(roleId);
+    }
+
+    /**
+     * Sets the authority of the user's role id and returns the same user.
+     */
+    public User resolve(User user) {
+        user.setAuthority(authorityOf(user.getRoleId()));
+        return user;
+    }
+}
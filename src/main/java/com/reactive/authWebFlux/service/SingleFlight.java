@@ -0,0 +1,40 @@
+package com.reactive.authWebFlux.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent calls for the same key share one in-flight {@link Mono}. The value, emptiness or error
+ * reaches every caller subscribed at the time; the call is cancelled only once all of them have cancelled.
+ * Nothing is kept after the call terminates, so a later caller always starts a fresh one. The call runs in the
+ * Reactor context of the caller that started it.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    Mono<V> execute(K key, Function<K, Mono<V>> call) {
+        return Mono.deferContextual(context -> inFlight.computeIfAbsent(key,
+                k -> share(k, call.apply(k).contextWrite(context))));
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<V> share(K key, Mono<V> call) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = call
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .flux()
+                .publish()
+                .refCount(1)
+                .next();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,78 @@
+package com.reactive.authWebFlux.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.reactive.authWebFlux.config.UserCacheProperties;
+import com.reactive.authWebFlux.domain.User;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caches users by case-insensitive username. Unknown usernames are cached too, with a shorter TTL,
+ * so repeated guesses do not reach the database. Concurrent loads of the same username share one query;
+ * each caller waits on its own copy of the shared load, so a cancelled caller does not cancel the others.
+ * The load runs in the Reactor context of the caller that started it, its query is logged under that request.
+ */
+public class UserDetailsCache {
+
+    private final AsyncCache<String, Optional<User>> cache;
+
+    public UserDetailsCache(UserCacheProperties properties) {
+        long ttlNanos = properties.getTtl().toNanos();
+        long negativeTtlNanos = properties.getNegativeTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, Optional<User>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<User> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<User> value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<User> value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Mono<User> get(String username, Function<String, Mono<User>> loader) {
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> cache.get(normalize(username), (key, executor) ->
+                                loader.apply(username)
+                                        .map(Optional::of)
+                                        .defaultIfEmpty(Optional.empty())
+                                        .contextWrite(context)
+                                        .toFuture()).copy()))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.synchronous().invalidate(normalize(username));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public AsyncCache<String, Optional<User>> getNativeCache() {
+        return cache;
+    }
+
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
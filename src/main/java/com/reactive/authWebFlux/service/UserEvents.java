@@ -0,0 +1,81 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserDtoMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multicasts created users to live subscribers. The sink never waits for a subscriber, each subscriber
+ * gets its own bounded buffer and an overflow policy for when it cannot keep up.
+ */
+@Component
+public class UserEvents {
+
+    public enum OverflowPolicy {
+        /**
+         * Keep the newest events, the subscriber silently misses older ones.
+         */
+        DROP_OLDEST,
+        /**
+         * Keep the buffered events, the subscriber silently misses newer ones.
+         */
+        DROP_LATEST,
+        /**
+         * Complete the subscriber's stream, it can reconnect and resume from its last id.
+         */
+        DISCONNECT
+    }
+
+    private final Sinks.Many<User> sink = Sinks.many().multicast().directBestEffort();
+
+    private final UserDtoMapper userDtoMapper;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder disconnected = new LongAdder();
+
+    public UserEvents(UserDtoMapper userDtoMapper, MeterRegistry meterRegistry) {
+        this.userDtoMapper = userDtoMapper;
+        Gauge.builder("user.events.subscribers", sink, Sinks.Many::currentSubscriberCount).register(meterRegistry);
+        FunctionCounter.builder("user.events.dropped", dropped, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("user.events.disconnected", disconnected, LongAdder::sum).register(meterRegistry);
+    }
+
+    /**
+     * Serialized, as the sink rejects concurrent emissions.
+     */
+    public synchronized void publish(User user) {
+        sink.tryEmitNext(user);
+    }
+
+    public Flux<UserDto> live(int bufferSize, OverflowPolicy policy) {
+        Flux<User> users = sink.asFlux();
+        switch (policy) {
+            case DROP_OLDEST:
+                users = users.onBackpressureBuffer(bufferSize, user -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST);
+                break;
+            case DROP_LATEST:
+                users = users.onBackpressureBuffer(bufferSize, user -> dropped.increment(),
+                        BufferOverflowStrategy.DROP_LATEST);
+                break;
+            default:
+                users = users.onBackpressureBuffer(bufferSize)
+                        .onErrorResume(Exceptions::isOverflow, e -> {
+                            disconnected.increment();
+                            return Flux.empty();
+                        });
+        }
+        return users.map(userDtoMapper::toDto);
+    }
+}
@@ -2,53 +2,290 @@ package com.reactive.authWebFlux.service;
 
 
 import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserImportResultDto;
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
 import com.reactive.authWebFlux.exception.UserAlreadyExistsException;
 import com.reactive.authWebFlux.exception.UserNotFoundException;
+import com.reactive.authWebFlux.metrics.OperationTimer;
 import com.reactive.authWebFlux.repository.UserRepository;
 import lombok.AllArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Slf4j
 @AllArgsConstructor
 @Service
-public class UserService implements ReactiveUserDetailsService {
+public class UserService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
 
     private static final int USER_ROLE_ID = 1;
 
     private final UserRepository userRepository;
 
-    private final PasswordEncoder encoder;
+    private final PasswordHashingService hashingService;
+
+    private final UserDetailsCache userDetailsCache;
+
+    private final OperationTimer operationTimer;
+
+    private final RoleAuthorities roleAuthorities;
+
+    private final UserEvents userEvents;
+
+    private final UsernameFilter usernameFilter;
+
+    private final SingleFlight<Long, User> userLoads = new SingleFlight<>();
+
+    private final SingleFlight<Long, UserDto> userDtoLoads = new SingleFlight<>();
 
     @Override
     public Mono<UserDetails> findByUsername(String username) {
-        return userRepository.findByUsernameWithQuery(username).switchIfEmpty(
+        return operationTimer.time("service.findByUsername", cachedUser(username).switchIfEmpty(
                 Mono.error(new UsernameNotFoundException(username))
-        ).cast(UserDetails.class);
+        ).cast(UserDetails.class));
+    }
+
+    /**
+     * Stores the hash computed at the current cost policy after a successful login with an outdated one.
+     * A failed update only logs, the login itself has already succeeded.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        return operationTimer.time("repository.updatePassword",
+                        userRepository.updatePassword(user.getId(), newPassword))
+                .map(updated -> {
+                    userDetailsCache.invalidate(user.getUsername());
+                    User rehashed = User.builder()
+                            .id(user.getId())
+                            .username(user.getUsername())
+                            .password(newPassword)
+                            .roleId(user.getRoleId())
+                            .authority(user.getAuthority())
+                            .build();
+                    return (UserDetails) rehashed;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Rehashing the password of user id={} failed", user.getId(), e);
+                    return Mono.just(userDetails);
+                });
     }
 
+    /**
+     * Concurrent lookups of the same id share one query.
+     */
     public Mono<User> findById(Long userId) {
         return userId == null ? Mono.error(new RuntimeException("User id not presented")) :
-                userRepository.findById(userId).switchIfEmpty(Mono.error(new UserNotFoundException(userId)));
+                userLoads.execute(userId, id -> operationTimer.time("repository.findById",
+                                userRepository.findById(id)).map(roleAuthorities::resolve))
+                        .switchIfEmpty(Mono.error(new UserNotFoundException(userId)));
+    }
+
+    /**
+     * Concurrent lookups of the same id share one query.
+     */
+    public Mono<UserDto> findDtoById(Long userId) {
+        return userId == null ? Mono.error(new RuntimeException("User id not presented")) :
+                userDtoLoads.execute(userId, id -> operationTimer.time("repository.findDtoById",
+                                userRepository.findDtoById(id)))
+                        .switchIfEmpty(Mono.error(new UserNotFoundException(userId)));
+    }
+
+    /**
+     * Reloads the role table and drops cached users, so that logins pick up renamed roles at once.
+     */
+    public Mono<Void> refreshRoles() {
+        return roleAuthorities.refresh()
+                .doOnNext(authorities -> userDetailsCache.invalidateAll())
+                .then();
     }
 
     public Flux<User> findAll() {
         return userRepository.findAll();
     }
 
+    /**
+     * Keyset page of users ordered by id, starting after the given id.
+     */
+    public Flux<UserDto> findPage(long after, int limit) {
+        return operationTimer.time("repository.findPage", userRepository.findPage(after, limit));
+    }
+
+    /**
+     * All users after the given id, read page by page so that no query holds an unbounded cursor.
+     * The next page is only queried once the previous one has been consumed.
+     */
+    public Flux<UserDto> streamAfter(long after, int pageSize) {
+        return findPage(after, pageSize).collectList()
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : findPage(page.get(page.size() - 1).getId(), pageSize).collectList())
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Users created from now on. With {@code after}, the users created after that id are read first and
+     * live users follow without gaps or duplicates: the live subscription starts before the catch-up query
+     * and holds what arrives meanwhile in its bounded buffer.
+     */
+    public Flux<UserDto> createdUsers(Long after, int catchUpPageSize, int bufferSize,
+                                      UserEvents.OverflowPolicy overflowPolicy) {
+        if (after == null) {
+            return userEvents.live(bufferSize, overflowPolicy);
+        }
+        return Flux.defer(() -> {
+            AtomicLong lastSeen = new AtomicLong(after);
+            Disposable.Swap connection = Disposables.swap();
+            Flux<UserDto> live = userEvents.live(bufferSize, overflowPolicy)
+                    .publish()
+                    .autoConnect(0, connection::update);
+            return Flux.concat(
+                            streamAfter(after, catchUpPageSize).doOnNext(user -> lastSeen.set(user.getId())),
+                            live.filter(user -> user.getId() > lastSeen.get()))
+                    .doFinally(signal -> connection.dispose());
+        });
+    }
+
+    /**
+     * Taken usernames are rejected before the password is hashed, the insert still decides races.
+     */
     public Mono<User> addUser(final User user) {
         user.setRoleId(USER_ROLE_ID);
-        user.setPassword(encoder.encode(user.getPassword()));
-        return userRepository.findByUsernameWithQuery(user.getUsername()).flatMap((el) ->
-                Mono.<User>error(new UserAlreadyExistsException(user.getUsername()))
-        ).switchIfEmpty(
-                Mono.defer(() -> userRepository.save(user))
-        );
+        return operationTimer.time("service.addUser", isUsernameAvailable(user.getUsername())
+                .filter(available -> available)
+                .flatMap(available -> hashingService.encode(user.getPassword()))
+                .flatMap(hash -> operationTimer.time("repository.insertIfAbsent",
+                        userRepository.insertIfAbsent(user.getUsername(), hash, USER_ROLE_ID)))
+                .switchIfEmpty(Mono.error(() -> new UserAlreadyExistsException(user.getUsername())))
+                .doOnNext(saved -> {
+                    usernameFilter.put(saved.getUsername());
+                    userDetailsCache.invalidate(saved.getUsername());
+                    userEvents.publish(saved);
+                }));
+    }
+
+    /**
+     * Usernames the filter has never seen are free without a query, the rest are checked with an exists
+     * query that bypasses the user cache, so that probing names does not evict users who log in.
+     * Blank usernames are left to the insert to reject.
+     */
+    public Mono<Boolean> isUsernameAvailable(String username) {
+        if (!StringUtils.hasText(username) || !usernameFilter.mightContain(username)) {
+            return Mono.just(true);
+        }
+        return operationTimer.time("service.isUsernameAvailable", operationTimer.time(
+                "repository.existsByUsernameIgnoreCase", userRepository.existsByUsernameIgnoreCase(username))
+                .map(taken -> !taken));
+    }
+
+    private Mono<User> cachedUser(String username) {
+        return userDetailsCache.get(username, name -> operationTimer.time(
+                "repository.findByUsernameWithQuery", userRepository.findByUsernameWithQuery(name))
+                .map(roleAuthorities::resolve));
+    }
+
+    /**
+     * Puts every existing username into the filter, which answers "maybe taken" for all names until then.
+     */
+    public Mono<Void> loadUsernameFilter(int pageSize) {
+        return streamAfter(0, pageSize)
+                .doOnNext(user -> usernameFilter.put(user.getUsername()))
+                .then(Mono.fromRunnable(usernameFilter::markLoaded));
+    }
+
+    /**
+     * Creates users as they arrive. Passwords are hashed with bounded parallelism, users are inserted
+     * chunk by chunk, and one result per user is emitted in input order. Nothing is requested from
+     * the input beyond what the hashing and the current chunk need. A user whose hashing is rejected for
+     * lack of capacity is reported as overloaded, the rest of the import carries on.
+     */
+    public Flux<UserImportResultDto> importUsers(Flux<User> users, int chunkSize, int hashConcurrency) {
+        return users
+                .flatMapSequential(this::hashForImport, hashConcurrency)
+                .buffer(chunkSize)
+                .concatMap(chunk -> operationTimer.time("repository.insertAllIfAbsent",
+                                userRepository.insertAllIfAbsent(chunk.stream()
+                                        .filter(row -> row.getRejection() == null)
+                                        .map(ImportRow::getUser)
+                                        .collect(Collectors.toList())))
+                        .doOnNext(created -> {
+                            usernameFilter.put(created.getUsername());
+                            userDetailsCache.invalidate(created.getUsername());
+                            userEvents.publish(created);
+                        })
+                        .collectMap(created -> normalize(created.getUsername()))
+                        .flatMapIterable(created -> toImportResults(chunk, created)));
+    }
+
+    /**
+     * User ready for insertion, or rejected as invalid when the input has no username or password, or as
+     * overloaded when the hashing pool has no room for its password.
+     */
+    private Mono<ImportRow> hashForImport(User user) {
+        if (!StringUtils.hasText(user.getUsername()) || !StringUtils.hasText(user.getPassword())) {
+            return Mono.just(ImportRow.rejected(user, UserImportResultDto.Status.INVALID));
+        }
+        return hashingService.encode(user.getPassword())
+                .map(hash -> new ImportRow(User.builder()
+                        .username(user.getUsername())
+                        .password(hash)
+                        .roleId(USER_ROLE_ID)
+                        .build(), null))
+                .onErrorResume(ServiceOverloadedException.class,
+                        e -> Mono.just(ImportRow.rejected(user, UserImportResultDto.Status.OVERLOADED)));
+    }
+
+    private static List<UserImportResultDto> toImportResults(List<ImportRow> chunk, Map<String, User> created) {
+        Map<String, User> unclaimed = new HashMap<>(created);
+        return chunk.stream()
+                .map(row -> {
+                    User user = row.getUser();
+                    if (row.getRejection() != null) {
+                        return new UserImportResultDto(user.getUsername(), null, row.getRejection());
+                    }
+                    User inserted = unclaimed.remove(normalize(user.getUsername()));
+                    return inserted == null
+                            ? new UserImportResultDto(user.getUsername(), null, UserImportResultDto.Status.DUPLICATE)
+                            : new UserImportResultDto(inserted.getUsername(), inserted.getId(),
+                            UserImportResultDto.Status.CREATED);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Import input after hashing: the user to insert, or the status it was rejected with.
+     */
+    @Value
+    private static class ImportRow {
+
+        User user;
+
+        UserImportResultDto.Status rejection;
+
+        static ImportRow rejected(User input, UserImportResultDto.Status status) {
+            return new ImportRow(User.builder().username(input.getUsername()).build(), status);
+        }
     }
 }
@@ -0,0 +1,101 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.config.UsersApiProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of case-insensitive usernames. A username it has not seen is certainly not taken, a seen one
+ * may be, so only the latter needs a query. Until {@link #markLoaded()} every username counts as seen.
+ * Bits are only ever set, with CAS, so concurrent signups need no lock.
+ */
+@Component
+public class UsernameFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private volatile boolean loaded;
+
+    public UsernameFilter(UsersApiProperties properties) {
+        long expected = Math.max(1, properties.getAvailabilityExpectedUsernames());
+        double falsePositiveRate = properties.getAvailabilityFalsePositiveRate();
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+    }
+
+    /**
+     * Called once all existing usernames have been put.
+     */
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void put(String username) {
+        if (username == null) {
+            return;
+        }
+        long hash = hash(username);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(hash, i);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String username) {
+        if (!loaded || username == null) {
+            return true;
+        }
+        long hash = hash(username);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(hash, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * i-th probe derived from the two halves of one 64-bit hash (Kirsch-Mitzenmacher).
+     */
+    private long bitIndex(long hash, int i) {
+        long combined = (int) hash + (long) i * (int) (hash >>> 32);
+        return Math.floorMod(combined, bitCount);
+    }
+
+    /**
+     * FNV-1a over the lower-cased UTF-8 bytes, finished with the MurmurHash3 mixer.
+     */
+    private static long hash(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : username.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
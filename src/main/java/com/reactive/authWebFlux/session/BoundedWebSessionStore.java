@@ -0,0 +1,358 @@
+package com.reactive.authWebFlux.session;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.WebSessionStore;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory {@link WebSessionStore} with a hard capacity. Sessions are spread over independently locked
+ * partitions, each kept in access order so that a full partition drops its idle sessions first and then,
+ * depending on the {@link OverflowPolicy}, its least recently used session or the new one.
+ * <p>
+ * Sessions keep their whole attribute map, because form login also stores the CSRF token and the saved
+ * request there. Only the security context is trimmed: its principal is reduced to id, username, role and
+ * authority, so that neither the password hash nor anything loaded with the user stays in memory.
+ */
+public class BoundedWebSessionStore implements WebSessionStore {
+
+    public enum OverflowPolicy {
+        EVICT_LEAST_RECENTLY_USED, REJECT
+    }
+
+    private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(60);
+
+    private static final String SECURITY_CONTEXT_ATTR =
+            WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME;
+
+    private static final IdGenerator ID_GENERATOR = new JdkIdGenerator();
+
+    private final Stripe[] stripes;
+
+    private final int stripeCapacity;
+
+    private final Duration maxIdleTime;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Clock clock;
+
+    private final AtomicInteger liveSessions = new AtomicInteger();
+
+    private final AtomicLong idleEvictions = new AtomicLong();
+
+    private final AtomicLong capacityEvictions = new AtomicLong();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    private final AtomicLong nextSweep;
+
+    public BoundedWebSessionStore(int maxSessions, int stripeCount, Duration maxIdleTime,
+                                  OverflowPolicy overflowPolicy, Clock clock) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeCapacity = Math.max(1, maxSessions / stripeCount);
+        this.maxIdleTime = maxIdleTime;
+        this.overflowPolicy = overflowPolicy;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.millis() + SWEEP_INTERVAL.toMillis());
+    }
+
+    @Override
+    public Mono<WebSession> createWebSession() {
+        sweepIfDue();
+        return Mono.fromSupplier(BoundedWebSession::new);
+    }
+
+    @Override
+    public Mono<WebSession> retrieveSession(String sessionId) {
+        Stripe stripe = stripeFor(sessionId);
+        stripe.lock.lock();
+        try {
+            BoundedWebSession session = stripe.sessions.get(sessionId);
+            if (session == null) {
+                return Mono.empty();
+            }
+            if (session.isExpired()) {
+                stripe.sessions.remove(sessionId);
+                liveSessions.decrementAndGet();
+                idleEvictions.incrementAndGet();
+                return Mono.empty();
+            }
+            session.lastAccessTime = clock.millis();
+            return Mono.just(session);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Mono<Void> removeSession(String sessionId) {
+        return Mono.fromRunnable(() -> remove(sessionId));
+    }
+
+    @Override
+    public Mono<WebSession> updateLastAccessTime(WebSession webSession) {
+        return Mono.fromSupplier(() -> {
+            ((BoundedWebSession) webSession).lastAccessTime = clock.millis();
+            return webSession;
+        });
+    }
+
+    public int getLiveSessions() {
+        return liveSessions.get();
+    }
+
+    public long getIdleEvictions() {
+        return idleEvictions.get();
+    }
+
+    public long getCapacityEvictions() {
+        return capacityEvictions.get();
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    private Stripe stripeFor(String sessionId) {
+        return stripes[(sessionId.hashCode() & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    private void remove(String sessionId) {
+        Stripe stripe = stripeFor(sessionId);
+        stripe.lock.lock();
+        try {
+            if (stripe.sessions.remove(sessionId) != null) {
+                liveSessions.decrementAndGet();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the session, making room in its partition if needed. False when the session was rejected.
+     */
+    private boolean store(BoundedWebSession session) {
+        Stripe stripe = stripeFor(session.getId());
+        stripe.lock.lock();
+        try {
+            if (stripe.sessions.containsKey(session.getId())) {
+                stripe.sessions.put(session.getId(), session);
+                return true;
+            }
+            if (stripe.sessions.size() >= stripeCapacity) {
+                sweep(stripe);
+            }
+            if (stripe.sessions.size() >= stripeCapacity) {
+                if (overflowPolicy == OverflowPolicy.REJECT) {
+                    rejections.incrementAndGet();
+                    return false;
+                }
+                Iterator<BoundedWebSession> leastRecentlyUsed = stripe.sessions.values().iterator();
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                liveSessions.decrementAndGet();
+                capacityEvictions.incrementAndGet();
+            }
+            stripe.sessions.put(session.getId(), session);
+            liveSessions.incrementAndGet();
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void sweepIfDue() {
+        long now = clock.millis();
+        long due = nextSweep.get();
+        if (now >= due && nextSweep.compareAndSet(due, now + SWEEP_INTERVAL.toMillis())) {
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    sweep(stripe);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the expired sessions of a partition, the caller holds its lock.
+     */
+    private void sweep(Stripe stripe) {
+        Iterator<BoundedWebSession> sessions = stripe.sessions.values().iterator();
+        while (sessions.hasNext()) {
+            if (sessions.next().isExpired()) {
+                sessions.remove();
+                liveSessions.decrementAndGet();
+                idleEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Security context whose principal carries only what authorization needs, other attributes as they are.
+     */
+    private static Object withoutCredentials(Object attribute) {
+        if (!(attribute instanceof SecurityContext)) {
+            return attribute;
+        }
+        Authentication authentication = ((SecurityContext) attribute).getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User)
+                || ((User) authentication.getPrincipal()).getPassword() == null) {
+            return attribute;
+        }
+        User user = (User) authentication.getPrincipal();
+        User principal = User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .authority(user.getAuthority())
+                .roleId(user.getRoleId())
+                .build();
+        return new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(principal, null, authentication.getAuthorities()));
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final LinkedHashMap<String, BoundedWebSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private enum State {
+        NEW, STARTED, EXPIRED
+    }
+
+    private class BoundedWebSession implements WebSession {
+
+        private final AtomicReference<String> id = new AtomicReference<>(ID_GENERATOR.generateId().toString());
+
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        private final long creationTime = clock.millis();
+
+        private volatile long lastAccessTime = creationTime;
+
+        private volatile Duration maxIdleTime = BoundedWebSessionStore.this.maxIdleTime;
+
+        private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
+
+        @Override
+        public String getId() {
+            return id.get();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public void start() {
+            state.compareAndSet(State.NEW, State.STARTED);
+        }
+
+        @Override
+        public boolean isStarted() {
+            return state.get() == State.STARTED || !attributes.isEmpty();
+        }
+
+        @Override
+        public Mono<Void> changeSessionId() {
+            return Mono.defer(() -> {
+                String previousId = id.get();
+                remove(previousId);
+                id.set(ID_GENERATOR.generateId().toString());
+                return isStarted() ? save() : Mono.empty();
+            });
+        }
+
+        @Override
+        public Mono<Void> invalidate() {
+            return Mono.fromRunnable(() -> {
+                state.set(State.EXPIRED);
+                attributes.clear();
+                remove(id.get());
+            });
+        }
+
+        @Override
+        public Mono<Void> save() {
+            return Mono.defer(() -> {
+                if (!attributes.isEmpty()) {
+                    state.compareAndSet(State.NEW, State.STARTED);
+                }
+                if (!isStarted()) {
+                    return Mono.empty();
+                }
+                attributes.computeIfPresent(SECURITY_CONTEXT_ATTR, (name, value) -> withoutCredentials(value));
+                if (!store(this)) {
+                    return Mono.error(new ServiceOverloadedException("Session capacity exceeded"));
+                }
+                if (state.get() == State.EXPIRED) {
+                    remove(id.get());
+                    return Mono.error(new IllegalStateException("Session was invalidated"));
+                }
+                return Mono.empty();
+            });
+        }
+
+        @Override
+        public boolean isExpired() {
+            if (state.get() == State.EXPIRED) {
+                return true;
+            }
+            if (!maxIdleTime.isNegative() && clock.millis() - lastAccessTime > maxIdleTime.toMillis()) {
+                state.set(State.EXPIRED);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return Instant.ofEpochMilli(creationTime);
+        }
+
+        @Override
+        public Instant getLastAccessTime() {
+            return Instant.ofEpochMilli(lastAccessTime);
+        }
+
+        @Override
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        @Override
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.reactive.authWebFlux.view;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.reactivestreams.Publisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the rendered view pages from memory. A page is rendered once per path and security state:
+ * anonymous, or the authenticated name and authorities. Pages embedding a CSRF token differ per session
+ * and must not be configured here. Responses carry a strong ETag per content coding answered with 304,
+ * and a gzip or brotli variant chosen by Accept-Encoding. Compression runs off the event loop.
+ * When templates are not cached by Thymeleaf (dev mode) a template change drops all cached pages.
+ */
+public class PageCacheFilter implements WebFilter, Ordered {
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private static final MediaType TEXT_HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+
+    private final Map<String, String> templatesByPath;
+
+    private final boolean brotli;
+
+    private final ToLongFunction<String> templateVersion;
+
+    private final Cache<String, RenderedPage> pages;
+
+    /**
+     * @param templatesByPath template rendered for each cached path, none of them embedding a CSRF token
+     * @param templateVersion changes when a template changes, constant when templates cannot change
+     */
+    public PageCacheFilter(Map<String, String> templatesByPath, long maximumSize, boolean brotli,
+                           ToLongFunction<String> templateVersion) {
+        this.templatesByPath = templatesByPath;
+        this.brotli = brotli;
+        this.templateVersion = templateVersion;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public Cache<String, ?> getNativeCache() {
+        return pages;
+    }
+
+    /**
+     * After Spring Security, so that the principal is known.
+     */
+    @Override
+    public int getOrder() {
+        return 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        String template = templatesByPath.get(path);
+        if (template == null || exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        return cacheKey(exchange, path).flatMap(key -> {
+            long version = templateVersion.applyAsLong(template);
+            RenderedPage page = pages.getIfPresent(key);
+            if (page != null && page.getTemplateVersion() != version) {
+                pages.invalidateAll();
+                page = null;
+            }
+            return page != null ? write(exchange, page) : render(exchange, chain, key, version);
+        });
+    }
+
+    private Mono<String> cacheKey(ServerWebExchange exchange, String path) {
+        return exchange.getPrincipal()
+                .map(PageCacheFilter::securityState)
+                .defaultIfEmpty(ANONYMOUS)
+                .map(state -> path + '|' + state);
+    }
+
+    private static String securityState(Principal principal) {
+        if (!(principal instanceof Authentication)) {
+            return "user:" + principal.getName();
+        }
+        Authentication authentication = (Authentication) principal;
+        return "user:" + authentication.getName() + ':' + authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Lets the view render into a buffer, compresses and caches a successful page on the bounded elastic
+     * scheduler and serves it like a cache hit.
+     */
+    private Mono<Void> render(ServerWebExchange exchange, WebFilterChain chain, String key, long version) {
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(body).flatMap(buffer -> {
+                    byte[] html = new byte[buffer.readableByteCount()];
+                    buffer.read(html);
+                    DataBufferUtils.release(buffer);
+                    HttpStatus status = getStatusCode();
+                    if (status != null && status != HttpStatus.OK) {
+                        return getDelegate().writeWith(Mono.just(bufferFactory().wrap(html)));
+                    }
+                    return Mono.fromCallable(() -> RenderedPage.of(html, brotli, version))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .flatMap(page -> {
+                                pages.put(key, page);
+                                return write(exchange, page);
+                            });
+                });
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return writeWith(Flux.from(body).concatMap(Flux::from));
+            }
+        };
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, RenderedPage page) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        String encoding = chooseEncoding(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING),
+                page.hasBrotli());
+        String etag = page.etag(encoding);
+        headers.setETag(etag);
+        headers.setCacheControl("private, no-cache");
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        List<String> ifNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+        if (ifNoneMatch.contains(etag) || ifNoneMatch.contains("*")) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        byte[] body = page.body(encoding);
+        headers.setContentType(TEXT_HTML_UTF8);
+        headers.setContentLength(body.length);
+        if (encoding != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    /**
+     * Brotli over gzip over identity, skipping codings the client refuses with {@code q=0}.
+     */
+    static String chooseEncoding(String acceptEncoding, boolean brotliAvailable) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean gzip = false;
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (isRefused(parts)) {
+                continue;
+            }
+            if (brotliAvailable && RenderedPage.BROTLI.equals(parts[0].trim())) {
+                return RenderedPage.BROTLI;
+            }
+            gzip |= RenderedPage.GZIP.equals(parts[0].trim());
+        }
+        return gzip ? RenderedPage.GZIP : null;
+    }
+
+    private static boolean isRefused(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactive.authWebFlux.view;
+
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rendered HTML with its precompressed variants. Each variant has its own strong ETag, the content hash
+ * suffixed with the coding. Compression levels favour a quick first render over the last few bytes.
+ */
+final class RenderedPage {
+
+    static final String GZIP = "gzip";
+
+    static final String BROTLI = "br";
+
+    private static final int GZIP_LEVEL = 6;
+
+    private static final int BROTLI_QUALITY = 5;
+
+    private final String hash;
+
+    private final byte[] identity;
+
+    private final byte[] gzip;
+
+    private final byte[] brotli;
+
+    private final long templateVersion;
+
+    private RenderedPage(String hash, byte[] identity, byte[] gzip, byte[] brotli, long templateVersion) {
+        this.hash = hash;
+        this.identity = identity;
+        this.gzip = gzip;
+        this.brotli = brotli;
+        this.templateVersion = templateVersion;
+    }
+
+    static RenderedPage of(byte[] html, boolean withBrotli, long templateVersion) {
+        return new RenderedPage(DigestUtils.md5DigestAsHex(html), html, gzip(html),
+                withBrotli ? brotli(html) : null, templateVersion);
+    }
+
+    /**
+     * ETag of the body for the given content encoding, {@code null} standing for identity.
+     */
+    String etag(String encoding) {
+        return encoding == null ? '"' + hash + '"' : '"' + hash + '-' + encoding + '"';
+    }
+
+    long getTemplateVersion() {
+        return templateVersion;
+    }
+
+    /**
+     * Body for the given content encoding, {@code null} standing for identity.
+     */
+    byte[] body(String encoding) {
+        if (GZIP.equals(encoding)) {
+            return gzip;
+        }
+        return BROTLI.equals(encoding) ? brotli : identity;
+    }
+
+    boolean hasBrotli() {
+        return brotli != null;
+    }
+
+    private static byte[] gzip(byte[] html) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(html.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(GZIP_LEVEL);
+            }
+        }) {
+            gzip.write(html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] brotli(byte[] html) {
+        try {
+            return Encoder.compress(html, new Encoder.Parameters().setQuality(BROTLI_QUALITY));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- Usernames differing only in case cannot be indexed, and which account keeps the
+-- name is an operator decision, so stop here with the offenders rather than rename anyone.
+DO
+$$
+DECLARE
+    duplicates TEXT;
+BEGIN
+    SELECT string_agg(names, '; ')
+    INTO duplicates
+    FROM (SELECT string_agg(username || ' (id ' || id || ')', ', ' ORDER BY id) AS names
+          FROM users
+          GROUP BY LOWER(username)
+          HAVING COUNT(*) > 1) AS clashes;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'users holds usernames that differ only in case: %', duplicates
+            USING HINT = 'Rename or delete all but one account per name, then rerun the migration.';
+    END IF;
+END
+$$;
+
+CREATE UNIQUE INDEX users_username_lower_uidx ON users (LOWER(username));
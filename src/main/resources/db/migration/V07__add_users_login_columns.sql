@@ -0,0 +1,3 @@
+ALTER TABLE users
+    ADD COLUMN last_login_at TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN login_count   BIGINT NOT NULL DEFAULT 0;
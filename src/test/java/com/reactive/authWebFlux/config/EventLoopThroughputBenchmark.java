@@ -0,0 +1,86 @@
+package com.reactive.authWebFlux.config;
+
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserDtoMapper;
+import com.reactive.authWebFlux.service.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Compares GET /api/users throughput of a single worker loop against one loop per core.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class EventLoopThroughputBenchmark {
+
+    private static final int USER_COUNT = 100;
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 256;
+
+    @Test
+    void compareSingleAndMultipleWorkerLoops() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        double single = measure(1);
+        double multiple = measure(cores);
+        System.out.printf("GET /api/users: 1 loop %.0f req/s, %d loops %.0f req/s%n", single, cores, multiple);
+    }
+
+    private double measure(int workerThreads) {
+        LoopResources loops = LoopResources.create("bench", 1, workerThreads, true);
+        RoutesConfig routes = new RoutesConfig(new UserDtoMapper(), userService(), new UsersApiProperties());
+        HttpHandler handler = RouterFunctions.toHttpHandler(routes.users());
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+        ConnectionProvider connections = ConnectionProvider.create("bench", CONCURRENCY);
+        HttpClient client = HttpClient.create(connections).port(server.port());
+        try {
+            drive(client, REQUESTS / 4);
+            long start = System.nanoTime();
+            drive(client, REQUESTS);
+            return REQUESTS / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            server.disposeNow();
+            connections.disposeLater().block();
+            loops.disposeLater().block();
+        }
+    }
+
+    private void drive(HttpClient client, int requests) {
+        Flux.range(0, requests)
+                .flatMap(i -> client.get()
+                        .uri("/api/users")
+                        .responseContent()
+                        .aggregate()
+                        .asString(), CONCURRENCY)
+                .blockLast();
+    }
+
+    private UserService userService() {
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.findPage(anyLong(), anyInt()))
+                .thenAnswer(invoke -> Flux.range(1, USER_COUNT)
+                        .map(id -> {
+                            UserDto dto = new UserDto();
+                            dto.setId(Long.valueOf(id));
+                            dto.setUsername("user" + id);
+                            return dto;
+                        }));
+        return userService;
+    }
+}
@@ -0,0 +1,57 @@
+package com.reactive.authWebFlux.domain;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class TestUserMapping {
+
+    private final MappingR2dbcConverter converter = new MappingR2dbcConverter(new R2dbcMappingContext());
+
+    private static Row row(Map<String, Object> values) {
+        Row row = Mockito.mock(Row.class);
+        Mockito.when(row.get(anyString())).thenAnswer(invoke -> values.get(invoke.<String>getArgument(0)));
+        Mockito.when(row.get(anyString(), any(Class.class)))
+                .thenAnswer(invoke -> values.get(invoke.<String>getArgument(0)));
+        return row;
+    }
+
+    private static RowMetadata metadata(Map<String, Object> values) {
+        RowMetadata metadata = Mockito.mock(RowMetadata.class);
+        List<ColumnMetadata> columns = values.keySet().stream()
+                .map(name -> {
+                    ColumnMetadata column = Mockito.mock(ColumnMetadata.class);
+                    Mockito.when(column.getName()).thenReturn(name);
+                    return column;
+                })
+                .collect(Collectors.toList());
+        Mockito.doReturn(columns).when(metadata).getColumnMetadatas();
+        Mockito.when(metadata.contains(anyString()))
+                .thenAnswer(invoke -> values.containsKey(invoke.<String>getArgument(0)));
+        return metadata;
+    }
+
+    @Test
+    void testReadUserRow() {
+        Map<String, Object> values = Map.of("id", 7L, "username", "user", "password", "{bcrypt}hash", "role_id", 1);
+        User user = converter.read(User.class, row(values), metadata(values));
+        assertEquals(7L, user.getId());
+        assertEquals("user", user.getUsername());
+        assertEquals("{bcrypt}hash", user.getPassword());
+        assertEquals(1, user.getRoleId());
+        assertTrue(user.getAuthorities().isEmpty());
+    }
+}
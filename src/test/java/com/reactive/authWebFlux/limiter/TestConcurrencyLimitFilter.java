@@ -0,0 +1,47 @@
+package com.reactive.authWebFlux.limiter;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+
+public class TestConcurrencyLimitFilter {
+
+    private final GradientConcurrencyLimiter adminReadLimiter =
+            Mockito.spy(new GradientConcurrencyLimiter(10, 1, 100, 0.2));
+
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(adminReadLimiter,
+            new GradientConcurrencyLimiter(10, 1, 100, 0.2), Duration.ofSeconds(1));
+
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    private void listUsers(String accept) {
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/users")
+                .header(HttpHeaders.ACCEPT, accept)), chain).block();
+    }
+
+    @Test
+    void testStreamsWithParametersNotSampled() {
+        listUsers("application/x-ndjson;charset=UTF-8");
+        listUsers("application/x-ndjson;q=0.9, application/json;q=0.5");
+        listUsers("text/event-stream");
+
+        Mockito.verify(adminReadLimiter, Mockito.never()).onSample(anyLong());
+        Mockito.verify(adminReadLimiter, Mockito.times(3)).release();
+    }
+
+    @Test
+    void testSingleResponsesSampled() {
+        listUsers("application/json");
+        listUsers("*/*");
+
+        Mockito.verify(adminReadLimiter, Mockito.times(2)).onSample(anyLong());
+    }
+}
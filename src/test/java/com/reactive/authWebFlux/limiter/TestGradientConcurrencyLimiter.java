@@ -0,0 +1,73 @@
+package com.reactive.authWebFlux.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestGradientConcurrencyLimiter {
+
+    private static final long BASELINE_RTT = 1_000_000;
+
+    private void fill(GradientConcurrencyLimiter limiter) {
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            limiter.tryAcquire();
+        }
+    }
+
+    @Test
+    void testRejectAboveLimit() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(2, 1, 10, 0.2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejections());
+    }
+
+    @Test
+    void testLimitGrowsAtBaselineLatency() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 100, 0.2);
+        fill(limiter);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(BASELINE_RTT);
+        }
+
+        assertTrue(limiter.getLimit() > 10);
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 5, 100, 0.2);
+        fill(limiter);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(BASELINE_RTT);
+        }
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(BASELINE_RTT * 4);
+        }
+
+        assertTrue(limiter.getLimit() < before);
+    }
+
+    @Test
+    void testLimitStaysWithinBounds() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 5, 12, 0.5);
+        fill(limiter);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(BASELINE_RTT);
+        }
+        assertEquals(12, limiter.getLimit());
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(BASELINE_RTT * 10);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+}
@@ -0,0 +1,37 @@
+package com.reactive.authWebFlux.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLogSampler {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+
+    @Test
+    void testFailedAndSlowEntriesAlwaysWritten() {
+        LogSampler sampler = new LogSampler(true, 0, Duration.ofMillis(100));
+        assertTrue(sampler.shouldLog(FAST, true));
+        assertTrue(sampler.shouldLog(Duration.ofMillis(100).toNanos(), false));
+        assertFalse(sampler.shouldLog(FAST, false));
+        assertEquals(2, sampler.getWritten());
+    }
+
+    @Test
+    void testOrdinaryEntriesSampled() {
+        LogSampler sampler = new LogSampler(true, 0.1, Duration.ofMillis(100));
+        long written = IntStream.range(0, 10_000).filter(i -> sampler.shouldLog(FAST, false)).count();
+        assertTrue(written > 800 && written < 1200, "written: " + written);
+    }
+
+    @Test
+    void testDisabledWritesNothing() {
+        LogSampler sampler = new LogSampler(false, 1, Duration.ZERO);
+        assertFalse(sampler.shouldLog(FAST, true));
+    }
+}
@@ -0,0 +1,91 @@
+package com.reactive.authWebFlux.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRequestLogFilter {
+
+    private final Logger requestLogger = (Logger) LoggerFactory.getLogger("requests");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final AtomicReference<String> contextRequestId = new AtomicReference<>();
+
+    private final WebFilterChain chain = exchange -> Mono.deferContextual(context -> {
+        contextRequestId.set(context.get(RequestLogFilter.REQUEST_ID));
+        return Mono.empty();
+    });
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        requestLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        requestLogger.detachAppender(appender);
+    }
+
+    private static MockServerWebExchange exchange(String requestId) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/users")
+                .header(RequestLogFilter.REQUEST_ID_HEADER, requestId));
+    }
+
+    @Test
+    void testClientRequestIdEchoedAndPutInContext() {
+        RequestLogFilter filter = new RequestLogFilter(new LogSampler(true, 1, Duration.ZERO));
+        MockServerWebExchange exchange = exchange("client-id.1");
+        filter.filter(exchange, chain).block();
+
+        assertEquals("client-id.1", exchange.getResponse().getHeaders().getFirst(RequestLogFilter.REQUEST_ID_HEADER));
+        assertEquals("client-id.1", contextRequestId.get());
+        assertEquals(1, appender.list.size());
+        assertTrue(appender.list.get(0).getFormattedMessage()
+                .startsWith("request_id=client-id.1 method=GET path=/api/users"));
+    }
+
+    @Test
+    void testUnusableRequestIdReplaced() {
+        RequestLogFilter filter = new RequestLogFilter(new LogSampler(true, 1, Duration.ZERO));
+        MockServerWebExchange exchange = exchange("not a valid id");
+        filter.filter(exchange, chain).block();
+
+        String requestId = exchange.getResponse().getHeaders().getFirst(RequestLogFilter.REQUEST_ID_HEADER);
+        assertNotEquals("not a valid id", requestId);
+        assertEquals(requestId, contextRequestId.get());
+    }
+
+    @Test
+    void testServerErrorsWrittenWithoutSampling() {
+        RequestLogFilter filter = new RequestLogFilter(new LogSampler(true, 0, Duration.ofMinutes(1)));
+        MockServerWebExchange ok = exchange("ok");
+        filter.filter(ok, chain).block();
+        MockServerWebExchange failed = exchange("failed");
+        filter.filter(failed, exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return Mono.empty();
+        }).block();
+
+        assertEquals(1, appender.list.size());
+        assertTrue(appender.list.get(0).getFormattedMessage().contains("request_id=failed"));
+        assertTrue(appender.list.get(0).getFormattedMessage().contains("status=503"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.reactive.authWebFlux.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class TestSqlLoggingConnectionFactory {
+
+    private final Logger sqlLogger = (Logger) LoggerFactory.getLogger("sql");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final ConnectionFactory delegate = Mockito.mock(ConnectionFactory.class);
+
+    private final Connection connection = Mockito.mock(Connection.class);
+
+    private final Statement statement = Mockito.mock(Statement.class);
+
+    private final SqlLoggingConnectionFactory factory =
+            new SqlLoggingConnectionFactory(delegate, new LogSampler(true, 1, Duration.ZERO));
+
+    @BeforeEach
+    void setUp() {
+        Mockito.doReturn(Mono.just(connection)).when(delegate).create();
+        Mockito.when(connection.createStatement(anyString())).thenReturn(statement);
+        Mockito.when(statement.bind(anyString(), any())).thenReturn(statement);
+        Mockito.when(statement.add()).thenReturn(statement);
+        Mockito.doReturn(Flux.just(Mockito.mock(Result.class))).when(statement).execute();
+        appender.start();
+        sqlLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sqlLogger.detachAppender(appender);
+    }
+
+    private Statement decoratedStatement(String sql) {
+        return Mono.from(factory.create()).block().createStatement(sql);
+    }
+
+    @Test
+    void testStatementBuildersReturnDecoratedStatement() {
+        Statement decorated = decoratedStatement("select 1");
+        assertSame(decorated, decorated.bind("id", 1));
+        assertSame(decorated, decorated.add());
+    }
+
+    @Test
+    void testUnwrapReturnsDelegates() {
+        Connection decorated = Mono.from(factory.create()).block();
+        assertSame(connection, ((Wrapped<?>) decorated).unwrap());
+        assertSame(statement, ((Wrapped<?>) decorated.createStatement("select 1")).unwrap());
+        assertSame(delegate, factory.unwrap());
+    }
+
+    @Test
+    void testExecutionLoggedWithRequestIdFromContext() {
+        Statement decorated = decoratedStatement("select id\n  from users\n  where id = $1");
+        Flux.from(decorated.execute())
+                .contextWrite(Context.of(RequestLogFilter.REQUEST_ID, "abc123"))
+                .blockLast();
+
+        assertEquals(1, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        assertEquals("request_id=abc123 outcome=completed",
+                message.substring(0, message.indexOf(" duration_ms=")));
+        assertEquals("sql=\"select id from users where id = $1\"", message.substring(message.indexOf("sql=")));
+    }
+}
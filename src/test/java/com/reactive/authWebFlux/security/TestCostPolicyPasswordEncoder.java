@@ -0,0 +1,40 @@
+package com.reactive.authWebFlux.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCostPolicyPasswordEncoder {
+
+    @Test
+    void testCostWithinBudget() {
+        Duration budget = Duration.ofMillis(250);
+        long fiftyMillis = Duration.ofMillis(50).toNanos();
+
+        assertEquals(12, CostPolicyPasswordEncoder.costWithin(budget, 10, 14, fiftyMillis));
+        assertEquals(11, CostPolicyPasswordEncoder.costWithin(budget, 10, 11, fiftyMillis));
+        assertEquals(10, CostPolicyPasswordEncoder.costWithin(budget, 10, 14, budget.toNanos() * 2));
+    }
+
+    @Test
+    void testUpgradeOnlyLowerCosts() {
+        CostPolicyPasswordEncoder encoder = new CostPolicyPasswordEncoder(5);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding("not a bcrypt hash"));
+    }
+
+    @Test
+    void testMatchesHashOfOtherCost() {
+        CostPolicyPasswordEncoder encoder = new CostPolicyPasswordEncoder(5);
+
+        assertTrue(encoder.matches("password", new BCryptPasswordEncoder(4).encode("password")));
+    }
+}
@@ -0,0 +1,108 @@
+package com.reactive.authWebFlux.security;
+
+import com.reactive.authWebFlux.config.LoginThrottleProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestLoginThrottleFilter {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private final AtomicInteger passed = new AtomicInteger();
+
+    private final WebFilterChain chain = exchange -> {
+        passed.incrementAndGet();
+        return Mono.empty();
+    };
+
+    private MockServerWebExchange login(String username, String address) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/login")
+                .remoteAddress(new InetSocketAddress(address, 40000))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body("username=" + username + "&password=secret"));
+    }
+
+    private MockServerWebExchange availabilityCheck(String username, String address) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/available")
+                .queryParam("username", username)
+                .remoteAddress(new InetSocketAddress(address, 40000)));
+    }
+
+    @Test
+    void testUsernameThrottledAcrossAddresses() {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setUserBurst(2);
+        LoginThrottleFilter filter = new LoginThrottleFilter(properties, clock);
+
+        filter.filter(login("user", "10.0.0.1"), chain).block();
+        filter.filter(login("User", "10.0.0.2"), chain).block();
+        MockServerWebExchange throttled = login("user", "10.0.0.3");
+        filter.filter(throttled, chain).block();
+
+        assertEquals(2, passed.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getResponse().getStatusCode());
+        assertEquals("12", throttled.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals(1, filter.getUserRejections());
+    }
+
+    @Test
+    void testAddressThrottledAcrossUsernames() {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setAddressBurst(1);
+        LoginThrottleFilter filter = new LoginThrottleFilter(properties, clock);
+
+        filter.filter(login("first", "10.0.0.1"), chain).block();
+        MockServerWebExchange throttled = login("second", "10.0.0.1");
+        filter.filter(throttled, chain).block();
+        MockServerWebExchange otherAddress = login("second", "10.0.0.2");
+        filter.filter(otherAddress, chain).block();
+
+        assertEquals(2, passed.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getResponse().getStatusCode());
+        assertNull(otherAddress.getResponse().getStatusCode());
+        assertEquals(1, filter.getAddressRejections());
+    }
+
+    @Test
+    void testAvailabilityChecksShareAddressBucket() {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setAddressBurst(2);
+        LoginThrottleFilter filter = new LoginThrottleFilter(properties, clock);
+
+        filter.filter(login("first", "10.0.0.1"), chain).block();
+        filter.filter(availabilityCheck("second", "10.0.0.1"), chain).block();
+        MockServerWebExchange throttled = availabilityCheck("third", "10.0.0.1");
+        filter.filter(throttled, chain).block();
+
+        assertEquals(2, passed.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getResponse().getStatusCode());
+        assertEquals(1, filter.getAddressRejections());
+    }
+
+    @Test
+    void testOtherRequestsNotThrottled() {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setAddressBurst(1);
+        LoginThrottleFilter filter = new LoginThrottleFilter(properties, clock);
+
+        for (int i = 0; i < 3; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/login")), chain).block();
+        }
+
+        assertEquals(3, passed.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.reactive.authWebFlux.security;
+
+import com.reactive.authWebFlux.config.TokenProperties;
+import com.reactive.authWebFlux.domain.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestTokenService {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final String KEY_1 = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String KEY_2 = Base64.getEncoder().encodeToString("another-32-byte-signing-key-0000".getBytes());
+
+    private TokenService createService(String activeKeyId, Map<String, String> keys, Instant now) {
+        TokenProperties properties = new TokenProperties();
+        properties.setActiveKeyId(activeKeyId);
+        properties.setKeys(keys);
+        properties.setTtl(Duration.ofMinutes(10));
+        return new TokenService(properties, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private Authentication adminAuthentication() {
+        User admin = User.builder().id(2L).username("admin")
+                .authority(new SimpleGrantedAuthority("ROLE_ADMIN")).build();
+        return new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities());
+    }
+
+    @Test
+    void testIssueAndVerify() {
+        TokenService tokenService = createService("k1", Map.of("k1", KEY_1), NOW);
+        Optional<Authentication> authentication = tokenService.verify(tokenService.issue(adminAuthentication()));
+        assertTrue(authentication.isPresent());
+        User principal = (User) authentication.get().getPrincipal();
+        assertEquals(2L, principal.getId());
+        assertEquals("admin", principal.getUsername());
+        assertEquals("ROLE_ADMIN", authentication.get().getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void testRejectExpiredToken() {
+        String token = createService("k1", Map.of("k1", KEY_1), NOW).issue(adminAuthentication());
+        TokenService later = createService("k1", Map.of("k1", KEY_1), NOW.plus(Duration.ofMinutes(11)));
+        assertFalse(later.verify(token).isPresent());
+    }
+
+    @Test
+    void testRejectTamperedToken() {
+        TokenService tokenService = createService("k1", Map.of("k1", KEY_1), NOW);
+        String token = tokenService.issue(adminAuthentication());
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1:ROLE_ADMIN:9999999999:user".getBytes());
+        assertFalse(tokenService.verify(parts[0] + "." + forgedPayload + "." + parts[2]).isPresent());
+        assertFalse(tokenService.verify("garbage").isPresent());
+    }
+
+    @Test
+    void testVerifyAfterKeyRotation() {
+        String oldToken = createService("k1", Map.of("k1", KEY_1), NOW).issue(adminAuthentication());
+        TokenService rotated = createService("k2", Map.of("k1", KEY_1, "k2", KEY_2), NOW);
+        assertTrue(rotated.verify(oldToken).isPresent());
+        assertTrue(rotated.verify(rotated.issue(adminAuthentication())).isPresent());
+        TokenService retired = createService("k2", Map.of("k2", KEY_2), NOW);
+        assertFalse(retired.verify(oldToken).isPresent());
+    }
+
+    @Test
+    void testRejectMissingOrShortKeys() {
+        IllegalStateException empty = assertThrows(IllegalStateException.class,
+                () -> createService("k1", Map.of("k1", ""), NOW));
+        assertTrue(empty.getMessage().contains("app.token.keys.k1"));
+        assertThrows(IllegalStateException.class, () -> createService("k1", Map.of("k1", "not base64!"), NOW));
+        String shortKey = Base64.getEncoder().encodeToString(new byte[16]);
+        assertThrows(IllegalStateException.class, () -> createService("k1", Map.of("k1", shortKey), NOW));
+    }
+}
@@ -0,0 +1,89 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.config.LoginRecorderProperties;
+import com.reactive.authWebFlux.domain.UserLogin;
+import com.reactive.authWebFlux.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class TestLoginRecorder {
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+
+    private final LoginRecorderProperties properties = new LoginRecorderProperties();
+
+    private LoginRecorder recorder;
+
+    @BeforeEach
+    void createRecorder() {
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setMaxPendingUsers(2);
+        recorder = new LoginRecorder(userRepository, properties,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void destroyRecorder() {
+        Mockito.when(userRepository.recordLogins(anyList())).thenReturn(Mono.just(0));
+        recorder.destroy();
+    }
+
+    @Test
+    void testLoginsOfOneUserCoalesced() {
+        Mockito.when(userRepository.recordLogins(anyList()))
+                .thenAnswer(invoke -> Mono.just(invoke.<List<UserLogin>>getArgument(0).size()));
+        recorder.record(1);
+        recorder.record(1);
+        recorder.record(2);
+        StepVerifier.create(recorder.flush())
+                .expectNext(2)
+                .verifyComplete();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UserLogin>> logins = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(userRepository).recordLogins(logins.capture());
+        assertEquals(2, logins.getValue().stream()
+                .filter(login -> login.getUserId() == 1)
+                .findFirst().orElseThrow().getCount());
+        assertEquals(0, recorder.getPending());
+    }
+
+    @Test
+    void testLoginsBeyondBoundDropped() {
+        recorder.record(1);
+        recorder.record(2);
+        recorder.record(3);
+        recorder.record(1);
+        assertEquals(2, recorder.getPending());
+    }
+
+    @Test
+    void testFailedBatchRetriedWithNextFlush() {
+        Mockito.when(userRepository.recordLogins(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("connection lost")))
+                .thenReturn(Mono.just(1));
+        recorder.record(1);
+        StepVerifier.create(recorder.flush())
+                .expectNext(0)
+                .verifyComplete();
+        assertEquals(1, recorder.getPending());
+        StepVerifier.create(recorder.flush())
+                .expectNext(1)
+                .verifyComplete();
+        assertEquals(0, recorder.getPending());
+    }
+}
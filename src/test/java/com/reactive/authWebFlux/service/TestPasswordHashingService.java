@@ -0,0 +1,61 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.config.HashingProperties;
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class TestPasswordHashingService {
+
+    private PasswordHashingService hashingService;
+
+    @AfterEach
+    void shutdown() {
+        hashingService.destroy();
+    }
+
+    private PasswordHashingService createService(PasswordEncoder encoder, int poolSize, int queueCapacity) {
+        HashingProperties properties = new HashingProperties();
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+        return new PasswordHashingService(encoder, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testEncodeAndMatch() {
+        hashingService = createService(new BCryptPasswordEncoder(4), 1, 1);
+        StepVerifier.create(hashingService.encode("password")
+                        .flatMap(hash -> hashingService.matches("password", hash)))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void testRejectWhenQueueIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = Mockito.mock(PasswordEncoder.class);
+        Mockito.when(blockingEncoder.encode(any())).thenAnswer(invoke -> {
+            release.await();
+            return "hash";
+        });
+        hashingService = createService(blockingEncoder, 1, 1);
+        Disposable running = hashingService.encode("first").subscribe();
+        Disposable queued = hashingService.encode("second").subscribe();
+        StepVerifier.create(hashingService.encode("third"))
+                .expectError(ServiceOverloadedException.class)
+                .verify();
+        release.countDown();
+        running.dispose();
+        queued.dispose();
+    }
+}
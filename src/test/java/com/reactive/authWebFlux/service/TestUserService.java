@@ -1,24 +1,41 @@
 package com.reactive.authWebFlux.service;
 
+import com.reactive.authWebFlux.config.UserCacheProperties;
+import com.reactive.authWebFlux.config.UsersApiProperties;
 import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserDtoMapper;
+import com.reactive.authWebFlux.dto.UserImportResultDto;
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
 import com.reactive.authWebFlux.exception.UserAlreadyExistsException;
 import com.reactive.authWebFlux.exception.UserNotFoundException;
+import com.reactive.authWebFlux.logging.RequestLogFilter;
+import com.reactive.authWebFlux.metrics.OperationTimer;
 import com.reactive.authWebFlux.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
+import reactor.util.context.Context;
 
 import java.util.ArrayList;
+import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -28,8 +45,16 @@ public class TestUserService {
     private static final Integer USER_TEST_COUNT = 10;
     private static final Long NON_EXISTENT_USER_ID = 0L;
 
+    private final UserDtoMapper userDtoMapper = new UserDtoMapper();
+
     @Mock
-    PasswordEncoder passwordEncoder;
+    PasswordHashingService passwordHashingService;
+
+    @Spy
+    private UserDetailsCache userDetailsCache = new UserDetailsCache(new UserCacheProperties());
+
+    @Spy
+    private OperationTimer operationTimer = new OperationTimer(new SimpleMeterRegistry());
 
     @InjectMocks
     private UserService userService;
@@ -37,6 +62,21 @@ public class TestUserService {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RoleAuthorities roleAuthorities;
+
+    @Spy
+    private UserEvents userEvents = new UserEvents(userDtoMapper, new SimpleMeterRegistry());
+
+    @Spy
+    private UsernameFilter usernameFilter = new UsernameFilter(new UsersApiProperties());
+
+    @BeforeEach
+    void resolveRolesAsIs() {
+        Mockito.when(roleAuthorities.resolve(any())).thenAnswer(invoke -> invoke.getArgument(0));
+        usernameFilter.markLoaded();
+    }
+
     @Test
     void testFindByUsernameNotFound() {
         Mockito.when(userRepository.findByUsernameWithQuery(anyString()))
@@ -58,6 +98,36 @@ public class TestUserService {
                 .verifyComplete();
     }
 
+    @Test
+    void testFindByUsernameServedFromCache() {
+        Mockito.when(userRepository.findByUsernameWithQuery(anyString()))
+                .thenReturn(Mono.empty());
+        Mono<UserDetails> userMono = userService.findByUsername("nonExistentUser")
+                .onErrorResume(UsernameNotFoundException.class, e -> userService.findByUsername("NonExistentUser"));
+        StepVerifier.create(userMono)
+                .expectError(UsernameNotFoundException.class)
+                .verify();
+        Mockito.verify(userRepository, Mockito.times(1)).findByUsernameWithQuery(anyString());
+    }
+
+    @Test
+    void testLoadsRunInCallerContext() {
+        Mockito.when(userRepository.findByUsernameWithQuery(anyString()))
+                .thenReturn(Mono.deferContextual(context -> Mono.just(
+                        User.builder().username(context.get(RequestLogFilter.REQUEST_ID)).build())));
+        Mockito.when(userRepository.findById(eq(1L)))
+                .thenReturn(Mono.deferContextual(context -> Mono.just(
+                        User.builder().id(1L).username(context.get(RequestLogFilter.REQUEST_ID)).build())));
+        StepVerifier.create(userService.findByUsername("user")
+                        .contextWrite(Context.of(RequestLogFilter.REQUEST_ID, "first")))
+                .expectNextMatches(user -> user.getUsername().equals("first"))
+                .verifyComplete();
+        StepVerifier.create(userService.findById(1L)
+                        .contextWrite(Context.of(RequestLogFilter.REQUEST_ID, "second")))
+                .expectNextMatches(user -> user.getUsername().equals("second"))
+                .verifyComplete();
+    }
+
     @Test
     void testFindByIdNotFound() {
         Mockito.when(userRepository.findById(eq(NON_EXISTENT_USER_ID)))
@@ -90,6 +160,78 @@ public class TestUserService {
                 .verifyComplete();
     }
 
+    @Test
+    void testConcurrentFindByIdShareOneQuery() {
+        final Long userId = 1L;
+        User expectedUser = User.builder().id(userId).build();
+        Sinks.One<User> query = Sinks.one();
+        Mockito.when(userRepository.findById(eq(userId)))
+                .thenReturn(query.asMono());
+        Mono<User> first = userService.findById(userId).cache();
+        Mono<User> second = userService.findById(userId).cache();
+        first.subscribe();
+        second.subscribe();
+        Disposable cancelled = userService.findById(userId).subscribe();
+        cancelled.dispose();
+
+        query.tryEmitValue(expectedUser);
+
+        StepVerifier.create(first).expectNext(expectedUser).verifyComplete();
+        StepVerifier.create(second).expectNext(expectedUser).verifyComplete();
+        Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
+    }
+
+    @Test
+    void testConcurrentFindByIdShareError() {
+        final Long userId = 1L;
+        Sinks.One<User> query = Sinks.one();
+        Mockito.when(userRepository.findById(eq(userId)))
+                .thenReturn(query.asMono());
+        Mono<User> first = userService.findById(userId).cache();
+        Mono<User> second = userService.findById(userId).cache();
+        first.subscribe(user -> {
+        }, error -> {
+        });
+        second.subscribe(user -> {
+        }, error -> {
+        });
+
+        query.tryEmitError(new IllegalStateException("connection lost"));
+
+        StepVerifier.create(first).expectError(IllegalStateException.class).verify();
+        StepVerifier.create(second).expectError(IllegalStateException.class).verify();
+        Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
+    }
+
+    @Test
+    void testCreatedUsersResumeAfterCatchUp() {
+        Mockito.when(userRepository.findPage(eq(0L), anyInt()))
+                .thenReturn(Flux.just(1L, 2L).map(id -> userDtoMapper.toDto(User.builder().id(id).build())));
+        Mockito.when(userRepository.findPage(eq(2L), anyInt()))
+                .thenReturn(Flux.empty());
+        Flux<UserDto> users = userService.createdUsers(0L, 2, 16, UserEvents.OverflowPolicy.DISCONNECT);
+        StepVerifier.create(users.map(UserDto::getId))
+                .expectNext(1L, 2L)
+                .then(() -> {
+                    userEvents.publish(User.builder().id(2L).username("user2").build());
+                    userEvents.publish(User.builder().id(3L).username("user3").build());
+                })
+                .expectNext(3L)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testUpdatePasswordInvalidatesCache() {
+        User user = User.builder().id(1L).username("user").password("old").roleId(1).build();
+        Mockito.when(userRepository.updatePassword(1L, "new")).thenReturn(Mono.just(1));
+        StepVerifier.create(userService.updatePassword(user, "new"))
+                .expectNextMatches(updated -> updated.getPassword().equals("new")
+                        && updated.getUsername().equals("user"))
+                .verifyComplete();
+        Mockito.verify(userDetailsCache).invalidate("user");
+    }
+
     @Test
     void testFindAll() {
         Flux<User> expectedUsers = Flux
@@ -115,12 +257,10 @@ public class TestUserService {
     @Test
     void testAddUserSuccessful() {
         final Long userId = 1L;
-        User user = User.builder().id(userId).build();
-        Mockito.when(userRepository.findByUsernameWithQuery(eq(user.getUsername())))
-                .thenReturn(Mono.empty());
-        Mockito.when(userRepository.save(eq(user)))
+        User user = User.builder().id(userId).username("user").password("password").build();
+        Mockito.when(passwordHashingService.encode(any())).thenReturn(Mono.just("hash"));
+        Mockito.when(userRepository.insertIfAbsent(eq("user"), eq("hash"), anyInt()))
                 .thenReturn(Mono.just(user));
-        Mockito.when(passwordEncoder.encode(anyString())).thenReturn(anyString());
         Mono<User> addedUser = userService.addUser(user);
         StepVerifier.create(addedUser)
                 .expectNext(user)
@@ -134,8 +274,9 @@ public class TestUserService {
                 .id(userId)
                 .username("user")
                 .build();
-        Mockito.when(userRepository.findByUsernameWithQuery(eq(user.getUsername())))
-                .thenReturn(Mono.just(user));
+        Mockito.when(passwordHashingService.encode(any())).thenReturn(Mono.just("hash"));
+        Mockito.when(userRepository.insertIfAbsent(eq("user"), anyString(), anyInt()))
+                .thenReturn(Mono.empty());
         Mono<User> addedUser = userService.addUser(user);
         StepVerifier.create(addedUser)
                 .expectErrorMatches(error -> error instanceof UserAlreadyExistsException
@@ -143,6 +284,42 @@ public class TestUserService {
                 .verify();
     }
 
+    @Test
+    void testImportReportsOverloadedRowsAndContinues() {
+        Mockito.when(passwordHashingService.encode(eq("first")))
+                .thenReturn(Mono.error(new ServiceOverloadedException("Password hashing capacity exceeded")));
+        Mockito.when(passwordHashingService.encode(eq("second"))).thenReturn(Mono.just("hash"));
+        Mockito.when(userRepository.insertAllIfAbsent(anyList()))
+                .thenAnswer(invoke -> Flux.fromIterable(invoke.<List<User>>getArgument(0))
+                        .map(user -> User.builder().id(2L).username(user.getUsername()).build()));
+        Flux<User> users = Flux.just(
+                User.builder().username("busy").password("first").build(),
+                User.builder().username("created").password("second").build());
+        StepVerifier.create(userService.importUsers(users, 10, 2))
+                .expectNext(new UserImportResultDto("busy", null, UserImportResultDto.Status.OVERLOADED))
+                .expectNext(new UserImportResultDto("created", 2L, UserImportResultDto.Status.CREATED))
+                .verifyComplete();
+    }
+
+    @Test
+    void testUsernameAvailableWithoutQuery() {
+        StepVerifier.create(userService.isUsernameAvailable("newUser"))
+                .expectNext(true)
+                .verifyComplete();
+        Mockito.verify(userRepository, Mockito.never()).existsByUsernameIgnoreCase(anyString());
+    }
 
+    @Test
+    void testAddUserTakenUsernameSkipsHashing() {
+        User user = User.builder().username("User").password("password").build();
+        usernameFilter.put("user");
+        Mockito.when(userRepository.existsByUsernameIgnoreCase(eq("User")))
+                .thenReturn(Mono.just(true));
+        StepVerifier.create(userService.addUser(user))
+                .expectErrorMatches(error -> error instanceof UserAlreadyExistsException)
+                .verify();
+        Mockito.verify(passwordHashingService, Mockito.never()).encode(any());
+        Mockito.verify(userRepository, Mockito.never()).findByUsernameWithQuery(anyString());
+    }
 }
 
@@ -0,0 +1,44 @@
+package com.reactive.authWebFlux.service;
+
+import com.reactive.authWebFlux.config.UsersApiProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestUsernameFilter {
+
+    private static UsernameFilter filter(long expectedUsernames) {
+        UsersApiProperties properties = new UsersApiProperties();
+        properties.setAvailabilityExpectedUsernames(expectedUsernames);
+        properties.setAvailabilityFalsePositiveRate(0.01);
+        return new UsernameFilter(properties);
+    }
+
+    @Test
+    void testEverythingMightBeTakenUntilLoaded() {
+        UsernameFilter filter = filter(100);
+        assertTrue(filter.mightContain("user"));
+        filter.markLoaded();
+        assertFalse(filter.mightContain("user"));
+    }
+
+    @Test
+    void testPutUsernamesAreFoundIgnoringCase() {
+        UsernameFilter filter = filter(1_000);
+        IntStream.range(0, 1_000).forEach(i -> filter.put("User" + i));
+        filter.markLoaded();
+        assertTrue(IntStream.range(0, 1_000).allMatch(i -> filter.mightContain("user" + i)));
+    }
+
+    @Test
+    void testFalsePositiveRateNearConfigured() {
+        UsernameFilter filter = filter(10_000);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("taken" + i));
+        filter.markLoaded();
+        long falsePositives = IntStream.range(0, 10_000).filter(i -> filter.mightContain("free" + i)).count();
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
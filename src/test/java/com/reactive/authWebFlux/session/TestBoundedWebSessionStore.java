@@ -0,0 +1,125 @@
+package com.reactive.authWebFlux.session;
+
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.web.server.WebSession;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestBoundedWebSessionStore {
+
+    private static final Duration MAX_IDLE_TIME = Duration.ofMinutes(30);
+
+    private static final String SECURITY_CONTEXT_ATTR =
+            WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME;
+
+    private WebSession createStartedSession(BoundedWebSessionStore store) {
+        WebSession session = store.createWebSession().block();
+        session.getAttributes().put("key", "value");
+        session.save().block();
+        return session;
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        BoundedWebSessionStore store = new BoundedWebSessionStore(2, 1, MAX_IDLE_TIME,
+                BoundedWebSessionStore.OverflowPolicy.EVICT_LEAST_RECENTLY_USED, Clock.systemUTC());
+        WebSession first = createStartedSession(store);
+        WebSession second = createStartedSession(store);
+        store.retrieveSession(first.getId()).block();
+        createStartedSession(store);
+
+        StepVerifier.create(store.retrieveSession(second.getId())).verifyComplete();
+        StepVerifier.create(store.retrieveSession(first.getId())).expectNext(first).verifyComplete();
+        assertEquals(2, store.getLiveSessions());
+        assertEquals(1, store.getCapacityEvictions());
+    }
+
+    @Test
+    void testRejectWhenFull() {
+        BoundedWebSessionStore store = new BoundedWebSessionStore(1, 1, MAX_IDLE_TIME,
+                BoundedWebSessionStore.OverflowPolicy.REJECT, Clock.systemUTC());
+        createStartedSession(store);
+        WebSession rejected = store.createWebSession().block();
+        rejected.getAttributes().put("key", "value");
+
+        StepVerifier.create(rejected.save()).expectError(ServiceOverloadedException.class).verify();
+        assertEquals(1, store.getLiveSessions());
+        assertEquals(1, store.getRejections());
+    }
+
+    @Test
+    void testIdleSessionMakesRoom() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        BoundedWebSessionStore store = new BoundedWebSessionStore(1, 1, MAX_IDLE_TIME,
+                BoundedWebSessionStore.OverflowPolicy.REJECT, clock);
+        WebSession idle = createStartedSession(store);
+        clock.instant = clock.instant.plus(MAX_IDLE_TIME).plusSeconds(1);
+        createStartedSession(store);
+
+        StepVerifier.create(store.retrieveSession(idle.getId())).verifyComplete();
+        assertEquals(1, store.getLiveSessions());
+        assertEquals(1, store.getIdleEvictions());
+        assertEquals(0, store.getRejections());
+    }
+
+    @Test
+    void testSecurityContextStoredWithoutPassword() {
+        BoundedWebSessionStore store = new BoundedWebSessionStore(1, 1, MAX_IDLE_TIME,
+                BoundedWebSessionStore.OverflowPolicy.REJECT, Clock.systemUTC());
+        User user = User.builder().id(1L).username("user").password("{bcrypt}hash").roleId(1)
+                .authority(new SimpleGrantedAuthority("ROLE_USER")).build();
+        WebSession session = store.createWebSession().block();
+        session.getAttributes().put(SECURITY_CONTEXT_ATTR,
+                new SecurityContextImpl(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())));
+        session.getAttributes().put("SPRING_SECURITY_SAVED_REQUEST", "/api/users");
+        session.save().block();
+
+        WebSession stored = store.retrieveSession(session.getId()).block();
+        User principal = (User) ((SecurityContext) stored.getAttributes().get(SECURITY_CONTEXT_ATTR))
+                .getAuthentication().getPrincipal();
+        assertNull(principal.getPassword());
+        assertEquals("user", principal.getUsername());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(principal.getAuthorities()));
+        assertEquals("/api/users", stored.getAttributes().get("SPRING_SECURITY_SAVED_REQUEST"));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.reactive.authWebFlux.view;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestPageCacheFilter {
+
+    private static final String HTML = "<html><body>home</body></html>";
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final AtomicLong templateVersion = new AtomicLong();
+
+    private final PageCacheFilter filter = new PageCacheFilter(Map.of("/", "home"), 100, false,
+            template -> templateVersion.get());
+
+    private final WebFilterChain view = exchange -> {
+        renders.incrementAndGet();
+        exchange.getResponse().getHeaders().setContentType(MediaType.TEXT_HTML);
+        return exchange.getResponse().writeWith(Mono.just(
+                exchange.getResponse().bufferFactory().wrap(HTML.getBytes(StandardCharsets.UTF_8))));
+    };
+
+    private MockServerWebExchange get(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, view).block();
+        return exchange;
+    }
+
+    @Test
+    void testRenderedOnce() {
+        MockServerWebExchange first = get(MockServerHttpRequest.get("/"));
+        MockServerWebExchange second = get(MockServerHttpRequest.get("/"));
+
+        assertEquals(1, renders.get());
+        assertEquals(HTML, second.getResponse().getBodyAsString().block());
+        assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+        assertNull(second.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testNotModified() {
+        String etag = get(MockServerHttpRequest.get("/")).getResponse().getHeaders().getETag();
+
+        MockServerWebExchange revalidated = get(MockServerHttpRequest.get("/").ifNoneMatch(etag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getResponse().getStatusCode());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void testGzipVariant() throws IOException {
+        get(MockServerHttpRequest.get("/"));
+
+        MockServerWebExchange compressed = get(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.ACCEPT_ENCODING, "br;q=0, gzip, deflate"));
+
+        assertEquals("gzip", compressed.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] body = compressed.getResponse().getBody()
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    return bytes;
+                })
+                .blockFirst();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertArrayEquals(HTML.getBytes(StandardCharsets.UTF_8), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void testEtagPerContentCoding() {
+        String identityEtag = get(MockServerHttpRequest.get("/")).getResponse().getHeaders().getETag();
+
+        MockServerWebExchange compressed = get(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .ifNoneMatch(identityEtag));
+
+        assertEquals(HttpStatus.OK, compressed.getResponse().getStatusCode());
+        assertNotEquals(identityEtag, compressed.getResponse().getHeaders().getETag());
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), compressed.getResponse().getHeaders().getVary());
+    }
+
+    @Test
+    void testTemplateChangeDropsCache() {
+        get(MockServerHttpRequest.get("/"));
+        templateVersion.incrementAndGet();
+
+        get(MockServerHttpRequest.get("/"));
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void testOtherPathsNotCached() {
+        get(MockServerHttpRequest.get("/login"));
+        get(MockServerHttpRequest.get("/login"));
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void testChooseEncoding() {
+        assertEquals("br", PageCacheFilter.chooseEncoding("gzip, br", true));
+        assertEquals("gzip", PageCacheFilter.chooseEncoding("gzip, br", false));
+        assertNull(PageCacheFilter.chooseEncoding("gzip;q=0, identity", true));
+        assertNull(PageCacheFilter.chooseEncoding(null, true));
+    }
+}
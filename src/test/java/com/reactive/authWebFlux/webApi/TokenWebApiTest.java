@@ -0,0 +1,171 @@
+package com.reactive.authWebFlux.webApi;
+
+import com.reactive.authWebFlux.config.CodecConfig;
+import com.reactive.authWebFlux.config.HashingConfig;
+import com.reactive.authWebFlux.config.MapperConfig;
+import com.reactive.authWebFlux.config.RoutesConfig;
+import com.reactive.authWebFlux.config.TokenSecurityConfig;
+import com.reactive.authWebFlux.config.UserCacheConfig;
+import com.reactive.authWebFlux.config.WebSecurityConfig;
+import com.reactive.authWebFlux.domain.Role;
+import com.reactive.authWebFlux.domain.User;
+import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.errorhandling.GlobalErrorAttributes;
+import com.reactive.authWebFlux.errorhandling.GlobalErrorWebExceptionHandler;
+import com.reactive.authWebFlux.metrics.OperationTimer;
+import com.reactive.authWebFlux.repository.RoleRepository;
+import com.reactive.authWebFlux.repository.UserRepository;
+import com.reactive.authWebFlux.service.RoleAuthorities;
+import com.reactive.authWebFlux.service.UserEvents;
+import com.reactive.authWebFlux.service.UserService;
+import com.reactive.authWebFlux.service.UsernameFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+
+/**
+ * Form login with {@code app.token.enabled}, the issued token then authenticating as cookie or bearer header.
+ */
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = RoutesConfig.class, properties = {
+        "app.token.enabled=true",
+        "app.token.active-key-id=k1",
+        "app.token.keys.k1=d2ViLWFwaS10ZXN0LXRva2VuLXNpZ25pbmcta2V5LTA=",
+        "app.token.secure-cookie=false"})
+@Import({UserService.class, RoleAuthorities.class, UserEvents.class, UsernameFilter.class, MapperConfig.class, CodecConfig.class, WebSecurityConfig.class, HashingConfig.class,
+        TokenSecurityConfig.class, UserCacheConfig.class, OperationTimer.class, SimpleMeterRegistry.class,
+        GlobalErrorWebExceptionHandler.class, GlobalErrorAttributes.class})
+public class TokenWebApiTest {
+
+    private static final String TOKEN_HEADER = "X-Auth-Token";
+    private static final String TOKEN_COOKIE = "AUTH_TOKEN";
+
+    @MockBean
+    UserRepository userRepository;
+
+    @MockBean
+    RoleRepository roleRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    RoleAuthorities roleAuthorities;
+
+    @Autowired
+    private WebTestClient webClient;
+
+    private static Role role(int id, String roleName) {
+        Role role = new Role();
+        role.setId(id);
+        role.setRoleName(roleName);
+        return role;
+    }
+
+    @BeforeEach
+    void initUserRepository() {
+        Mockito.when(roleRepository.findAll())
+                .thenReturn(Flux.just(role(1, "ROLE_USER"), role(2, "ROLE_ADMIN")));
+        roleAuthorities.refresh().block();
+        Mockito.when(userRepository.findByUsernameWithQuery(anyString())).thenReturn(Mono.empty());
+        Mockito.when(userRepository.findByUsernameWithQuery(eq("admin")))
+                .thenAnswer(invoke -> Mono.just(User.builder()
+                        .id(2L)
+                        .username("admin")
+                        .password(passwordEncoder.encode("password"))
+                        .roleId(2)
+                        .build()));
+        Mockito.when(userRepository.findDtoById(anyLong()))
+                .thenAnswer(invoke -> {
+                    UserDto dto = new UserDto();
+                    dto.setId(invoke.getArgument(0));
+                    dto.setUsername("user" + invoke.getArgument(0));
+                    return Mono.just(dto);
+                });
+    }
+
+    private FluxExchangeResult<Void> login() {
+        return webClient
+                .mutateWith(csrf())
+                .post()
+                .uri("/login")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("username", "admin").with("password", "password"))
+                .exchange()
+                .expectStatus().isFound()
+                .returnResult(Void.class);
+    }
+
+    @Test
+    void testLoginIssuesTokenAsHeaderAndCookie() {
+        FluxExchangeResult<Void> login = login();
+        String token = login.getResponseHeaders().getFirst(TOKEN_HEADER);
+        ResponseCookie cookie = login.getResponseCookies().getFirst(TOKEN_COOKIE);
+        assertNotNull(token);
+        assertNotNull(cookie);
+        assertEquals(token, cookie.getValue());
+        assertTrue(cookie.isHttpOnly());
+    }
+
+    @Test
+    void testTokenCookieAuthenticates() {
+        String token = login().getResponseCookies().getFirst(TOKEN_COOKIE).getValue();
+        webClient
+                .get()
+                .uri("/api/users/1")
+                .cookie(TOKEN_COOKIE, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1);
+    }
+
+    @Test
+    void testBearerTokenAuthenticates() {
+        String token = login().getResponseHeaders().getFirst(TOKEN_HEADER);
+        webClient
+                .get()
+                .uri("/api/users/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1);
+    }
+
+    @Test
+    void testTamperedTokenRedirectsToLogin() {
+        String token = login().getResponseHeaders().getFirst(TOKEN_HEADER);
+        webClient
+                .get()
+                .uri("/api/users/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().location("/login");
+    }
+}
@@ -1,15 +1,26 @@
 package com.reactive.authWebFlux.webApi;
 
+import com.reactive.authWebFlux.config.CodecConfig;
+import com.reactive.authWebFlux.config.HashingConfig;
 import com.reactive.authWebFlux.config.MapperConfig;
 import com.reactive.authWebFlux.config.RoutesConfig;
+import com.reactive.authWebFlux.config.UserCacheConfig;
 import com.reactive.authWebFlux.config.WebSecurityConfig;
+import com.reactive.authWebFlux.domain.Role;
 import com.reactive.authWebFlux.domain.User;
 import com.reactive.authWebFlux.dto.TestUserDto;
 import com.reactive.authWebFlux.dto.UserDto;
+import com.reactive.authWebFlux.dto.UserImportResultDto;
 import com.reactive.authWebFlux.errorhandling.GlobalErrorAttributes;
 import com.reactive.authWebFlux.errorhandling.GlobalErrorWebExceptionHandler;
+import com.reactive.authWebFlux.metrics.OperationTimer;
+import com.reactive.authWebFlux.repository.RoleRepository;
 import com.reactive.authWebFlux.repository.UserRepository;
+import com.reactive.authWebFlux.service.RoleAuthorities;
+import com.reactive.authWebFlux.service.UserEvents;
 import com.reactive.authWebFlux.service.UserService;
+import com.reactive.authWebFlux.service.UsernameFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +30,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -30,6 +42,12 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.pool.PoolAcquirePendingLimitException;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,7 +55,8 @@ import static org.springframework.security.test.web.reactive.server.SecurityMock
 
 @ExtendWith(SpringExtension.class)
 @WebFluxTest(controllers = RoutesConfig.class)
-@Import({UserService.class, MapperConfig.class, WebSecurityConfig.class,
+@Import({UserService.class, RoleAuthorities.class, UserEvents.class, UsernameFilter.class, MapperConfig.class, CodecConfig.class, WebSecurityConfig.class, HashingConfig.class,
+        UserCacheConfig.class, OperationTimer.class, SimpleMeterRegistry.class,
         GlobalErrorWebExceptionHandler.class, GlobalErrorAttributes.class})
 public class WebApiTest {
 
@@ -47,12 +66,18 @@ public class WebApiTest {
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    RoleRepository roleRepository;
+
     @Autowired
     PasswordEncoder passwordEncoder;
 
     @Autowired
     ModelMapper modelMapper;
 
+    @Autowired
+    RoleAuthorities roleAuthorities;
+
     @Autowired
     private WebTestClient webClient;
 
@@ -65,15 +90,37 @@ public class WebApiTest {
                 .build());
     }
 
+    private Mono<UserDto> createUserDtoWithId(final Long id) {
+        return createUserWithId(id).map(usr -> modelMapper.map(usr, UserDto.class));
+    }
+
+    private static Role role(int id, String roleName) {
+        Role role = new Role();
+        role.setId(id);
+        role.setRoleName(roleName);
+        return role;
+    }
+
     @BeforeEach
     void initUserRepository() {
+        Mockito.when(roleRepository.findAll())
+                .thenReturn(Flux.just(role(1, "ROLE_USER"), role(2, "ROLE_ADMIN")));
+        roleAuthorities.refresh().block();
         Mockito.when(userRepository.findById(anyLong()))
                 .thenAnswer(invoke -> createUserWithId(invoke.getArgument(0)));
-        Mockito.when(userRepository.findAll())
-                .thenReturn(Flux
-                        .range(1, USER_TEST_COUNT)
-                        .flatMap(i -> Mono.just(Long.valueOf(i)))
-                        .flatMap(this::createUserWithId));
+        Mockito.when(userRepository.findDtoById(anyLong()))
+                .thenAnswer(invoke -> createUserDtoWithId(invoke.getArgument(0)));
+        Mockito.when(userRepository.findPage(anyLong(), anyInt()))
+                .thenAnswer(invoke -> {
+                    long after = invoke.getArgument(0);
+                    int limit = invoke.getArgument(1);
+                    return Flux
+                            .range(1, USER_TEST_COUNT)
+                            .map(Long::valueOf)
+                            .filter(id -> id > after)
+                            .take(limit)
+                            .flatMap(this::createUserDtoWithId);
+                });
         Mockito.when(userRepository.findByUsernameWithQuery(anyString()))
                 .thenAnswer(invock ->
                         invock.getArgument(0).toString().equals("user")
@@ -81,11 +128,28 @@ public class WebApiTest {
                                 User.builder()
                                         .username("user")
                                         .password(passwordEncoder.encode("password"))
-                                        .role("ROLE_USER")
+                                        .roleId(1)
                                         .build())
                                 : Mono.empty());
-        Mockito.when(userRepository.save(any(User.class)))
-                .thenAnswer(invoke -> Mono.just(invoke.getArgument(0)));
+        Mockito.when(userRepository.existsByUsernameIgnoreCase(anyString()))
+                .thenAnswer(invoke -> Mono.just(invoke.<String>getArgument(0).equalsIgnoreCase("user")));
+        Mockito.when(userRepository.insertAllIfAbsent(anyList()))
+                .thenAnswer(invoke -> Flux.fromIterable(invoke.<List<User>>getArgument(0))
+                        .filter(usr -> !usr.getUsername().equals("user"))
+                        .index((index, usr) -> User.builder()
+                                .id(USER_TEST_COUNT + index + 1)
+                                .username(usr.getUsername())
+                                .build()));
+        Mockito.when(userRepository.insertIfAbsent(anyString(), anyString(), anyInt()))
+                .thenAnswer(invoke ->
+                        invoke.getArgument(0).toString().equals("user")
+                                ? Mono.empty()
+                                : Mono.just(
+                                User.builder()
+                                        .username(invoke.getArgument(0))
+                                        .password(invoke.getArgument(1))
+                                        .roleId(invoke.getArgument(2))
+                                        .build()));
 
     }
 
@@ -168,6 +232,97 @@ public class WebApiTest {
                         equalTo(true));
     }
 
+    @Test
+    @WithMockUser(username = "some_user", roles = {"USER"})
+    void testDeniedMetricsForUser() {
+        webClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testGetUsersPageForAdmin() {
+        webClient
+                .get()
+                .uri("/api/users?after=2&limit=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "5")
+                .expectBodyList(UserDto.class)
+                .value(users -> users.stream()
+                                .map(UserDto::getId)
+                                .collect(Collectors.toList()),
+                        equalTo(List.of(3L, 4L, 5L)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testGetUsersMalformedCursorIsBadRequest() {
+        webClient
+                .get()
+                .uri("/api/users?after=abc&limit=3")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid after: abc");
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testGetUserMalformedIdIsBadRequest() {
+        webClient
+                .get()
+                .uri("/api/users/abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid userId: abc");
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testUserEventsMalformedLastEventIdIsBadRequest() {
+        webClient
+                .get()
+                .uri("/api/users/events")
+                .header("Last-Event-ID", "abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testGetUsersLastPageHasNoCursor() {
+        webClient
+                .get()
+                .uri("/api/users?after=8&limit=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(UserDto.class)
+                .hasSize(2);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testStreamUsersAsNdjson() {
+        webClient
+                .get()
+                .uri("/api/users")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(UserDto.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextCount(USER_TEST_COUNT)
+                .verifyComplete();
+    }
+
     @Test
     @WithMockUser(username = "some_user", roles = {"USER"})
     void testDeniedGetUsersForUser() {
@@ -194,6 +349,49 @@ public class WebApiTest {
                 .jsonPath("$.status").isEqualTo("404");
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testGetUserAsCbor() {
+        webClient
+                .get()
+                .uri("/api/users/1")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(UserDto.class)
+                .value(UserDto::getUsername, equalTo("user1"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testUserNotFoundAsSmile() {
+        webClient
+                .get()
+                .uri("/api/users/" + NON_EXISTENT_USER_ID)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(Map.class)
+                .value(error -> (Integer) error.get("status"), equalTo(404));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testPoolOverflowIsServiceUnavailable() {
+        Mockito.when(userRepository.findDtoById(eq(99L)))
+                .thenReturn(Mono.error(new DataAccessResourceFailureException("Failed to obtain R2DBC Connection",
+                        new PoolAcquirePendingLimitException(100))));
+        webClient
+                .get()
+                .uri("/api/users/99")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("503");
+    }
+
     @Test
     @WithMockUser(username = "some_user", roles = {"USER"})
     void testDeniedGetUserForUser() {
@@ -217,6 +415,25 @@ public class WebApiTest {
                 .value(UserDto::getUsername, equalTo("user1"));
     }
 
+    @Test
+    void testUsernameAvailabilityWithoutLogin() {
+        webClient
+                .get()
+                .uri("/api/users/available?username=user")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("user")
+                .jsonPath("$.available").isEqualTo(false);
+        webClient
+                .get()
+                .uri("/api/users/available?username=newUser")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.available").isEqualTo(true);
+    }
+
     @Test
     void testSignupUserAlreadyExists() {
         webClient
@@ -257,4 +474,60 @@ public class WebApiTest {
                 .isEqualTo(modelMapper.map(user, UserDto.class));
     }
 
+    @Test
+    void testSignupWithSmileBody() {
+        webClient
+                .mutateWith(csrf())
+                .post()
+                .uri("/api/users")
+                .contentType(CodecConfig.APPLICATION_SMILE)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .body(Mono.just(TestUserDto.builder()
+                        .username("user2")
+                        .password("password")
+                        .build()), User.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(UserDto.class)
+                .value(UserDto::getUsername, equalTo("user2"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testImportUsers() {
+        String body = "{\"username\":\"user\",\"password\":\"password\"}\n"
+                + "{\"username\":\"user11\",\"password\":\"password\"}\n"
+                + "{\"username\":\"user12\"}\n";
+
+        webClient
+                .mutateWith(csrf())
+                .post()
+                .uri("/api/users/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(UserImportResultDto.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNext(new UserImportResultDto("user", null, UserImportResultDto.Status.DUPLICATE))
+                .expectNext(new UserImportResultDto("user11", 11L, UserImportResultDto.Status.CREATED))
+                .expectNext(new UserImportResultDto("user12", null, UserImportResultDto.Status.INVALID))
+                .verifyComplete();
+    }
+
+    @Test
+    @WithMockUser(username = "some_user", roles = {"USER"})
+    void testDeniedImportUsersForUser() {
+        webClient
+                .mutateWith(csrf())
+                .post()
+                .uri("/api/users/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"username\":\"user11\",\"password\":\"password\"}\n")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
 }